@@ -0,0 +1,37 @@
+package game;
+
+import java.util.Random;
+
+// Fixed positions shared by the benchmarks, built by playing seeded random moves on an empty board
+public final class BenchmarkPositions {
+    public static final long SEED = 369L;
+
+    private BenchmarkPositions() {
+    }
+
+    // Number of stones on the board for each named stage of a game
+    public static int stonesFor(String stage) {
+        return switch (stage) {
+            case "empty" -> 0;
+            case "mid" -> BitBoard.CELLS / 2;
+            case "nearFull" -> BitBoard.CELLS - 6;
+            default -> throw new IllegalArgumentException("Unknown stage: " + stage);
+        };
+    }
+
+    // Play the given number of random moves, alternating players, on the board
+    public static void fill(Board board, int stones) {
+        fill(board, stones, SEED);
+    }
+
+    // Like fill, with the moves drawn from another seed
+    public static void fill(Board board, int stones, long seed) {
+        Random random = new Random(seed);
+        int player = 1;
+        for (int i = 0; i < stones; i++) {
+            int cell = board.nthEmpty(random.nextInt(board.getEmptyCount()));
+            board.applyMove(BitBoard.rowOf(cell), BitBoard.colOf(cell), player);
+            player = 3 - player;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Cost of applying one move and taking it back, on every empty cell of an empty, mid-game and near-full board
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({"empty", "mid", "nearFull"})
+    public String stage;
+
+    private Board board;
+    private int[] cells;
+
+    @Setup
+    public void setup() {
+        board = new Board(BitBoard.SIZE);
+        BenchmarkPositions.fill(board, BenchmarkPositions.stonesFor(stage));
+        cells = new int[board.getEmptyCount()];
+        int i = 0;
+        for (int cell = board.nextEmpty(0); cell >= 0; cell = board.nextEmpty(cell + 1)) {
+            cells[i++] = cell;
+        }
+    }
+
+    // Score-only move as used by the AI searches
+    @Benchmark
+    public int applyMove() {
+        int total = 0;
+        for (int cell : cells) {
+            total += board.applyMove(BitBoard.rowOf(cell), BitBoard.colOf(cell), 1);
+            board.undoMove();
+        }
+        return total;
+    }
+
+    // Full move as played in a game, including the scoring marks
+    @Benchmark
+    public int handleConsecutive() {
+        int total = 0;
+        for (int cell : cells) {
+            total += board.handleConsecutive(BitBoard.rowOf(cell), BitBoard.colOf(cell), 1);
+            board.undoMove();
+        }
+        return total;
+    }
+}
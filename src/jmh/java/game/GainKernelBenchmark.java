@@ -0,0 +1,52 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Throughput of the scalar and vector backends scoring every empty cell of a position.
+// Only this benchmark runs with the vector module; the others measure the default (scalar) backend
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Dbg369.vector=true"})
+public class GainKernelBenchmark {
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    @Param({"empty", "mid", "nearFull"})
+    public String stage;
+
+    private GainKernel gainKernel;
+    private BitBoard board;
+    private final int[] gains = new int[BitBoard.CELLS];
+
+    @Setup
+    public void setup() {
+        if (kernel.equals("vector") && !GainKernel.isVectorAvailable()) {
+            throw new IllegalStateException("vector kernel not enabled: needs --add-modules jdk.incubator.vector -Dbg369.vector=true");
+        }
+        gainKernel = kernel.equals("vector") ? GainKernel.vector() : GainKernel.SCALAR;
+        Board position = new Board(BitBoard.SIZE);
+        BenchmarkPositions.fill(position, BenchmarkPositions.stonesFor(stage));
+        board = position.getBitBoard();
+    }
+
+    @Benchmark
+    public int[] gains() {
+        gainKernel.gains(board, gains);
+        return gains;
+    }
+}
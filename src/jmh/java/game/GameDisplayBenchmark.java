@@ -0,0 +1,56 @@
+package game;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import myutil.Localization;
+
+// Rendering cost of the console board; output goes to a discarding stream so only the formatting is measured
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameDisplayBenchmark {
+    @Param({"empty", "mid", "nearFull"})
+    public String stage;
+
+    private Game game;
+    private PrintStream console;
+
+    @Setup
+    public void setup() {
+        Localization.init(new Locale("en", "US"));
+        game = new Game(false, false);
+        game.setBot(1, 1);
+        BenchmarkPositions.fill(game.getBoard(), BenchmarkPositions.stonesFor(stage));
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public void displayGameStatus() {
+        game.displayGameStatus();
+    }
+}
@@ -0,0 +1,53 @@
+package game.ai;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.BenchmarkPositions;
+import game.BitBoard;
+import game.Board;
+
+// Time for EndgameSolver to solve a seeded position with the given number of empty cells.
+// The solver keeps its memo for later positions of a game, so every solve starts from a new solver.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndgameBenchmark {
+    @Param({"12", "14", "16"})
+    public int empties;
+
+    private BitBoard position;
+    private EndgameSolver solver;
+
+    @Setup
+    public void setup() {
+        Board board = new Board(BitBoard.SIZE);
+        BenchmarkPositions.fill(board, BitBoard.CELLS - empties);
+        position = board.getBitBoard();
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        solver = new EndgameSolver();
+    }
+
+    @Benchmark
+    public int solve() {
+        return solver.solve(position, empties, 0);
+    }
+}
@@ -0,0 +1,125 @@
+package game.ai;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.BenchmarkPositions;
+import game.Game;
+
+// Time for one GameAI.getBotMove per difficulty on fixed seeded positions.
+// The book and the endgame solver are off, so every difficulty times its own move choice (see EndgameBenchmark).
+// The searching difficulties get a fixed amount of work instead of a time budget:
+// difficulty 4 searches to a fixed depth and difficulty 5 runs a fixed number of playouts on one worker.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameAIBenchmark {
+    private static final int SEARCH_DEPTH = 4;
+    private static final long PLAYOUTS = 20_000;
+    private static final int BATCH = 64; // Positions cycled through by the quick difficulties
+
+    // Difficulties 1 and 2 take from under a microsecond to a few, too little for per-invocation setup: one AI
+    // plays a batch of seeded positions of the stage in turn. Neither keeps anything between moves
+    @State(Scope.Thread)
+    public static class QuickMove {
+        @Param({"1", "2"})
+        public int difficulty;
+
+        @Param({"empty", "mid", "nearFull"})
+        public String stage;
+
+        private final Game[] games = new Game[BATCH];
+        private GameAI ai;
+        private int next;
+
+        @Setup
+        public void setup() {
+            for (int i = 0; i < BATCH; i++) {
+                games[i] = new Game(false, false);
+                BenchmarkPositions.fill(games[i].getBoard(), BenchmarkPositions.stonesFor(stage), BenchmarkPositions.SEED + i);
+            }
+            games[0].setBot(1, difficulty);
+            ai = games[0].getGameAI1();
+            ai.setOpeningBook(null);
+            ai.setEndgameThreshold(0);
+        }
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            ai.setSeed(BenchmarkPositions.SEED);
+            next = 0;
+        }
+
+        GameAI nextPosition() {
+            ai.checkGame(games[next]);
+            next = (next + 1) % BATCH;
+            return ai;
+        }
+    }
+
+    // Difficulties 3 to 5 take from half a millisecond to several; every move starts from the same seed and an empty
+    // transposition table, which also holds the candidate replies difficulty 3 caches between moves
+    @State(Scope.Thread)
+    public static class SearchMove {
+        @Param({"3", "4", "5"})
+        public int difficulty;
+
+        @Param({"empty", "mid", "nearFull"})
+        public String stage;
+
+        private ForkJoinPool pool;
+        private GameAI ai;
+
+        @Setup
+        public void setup() {
+            pool = new ForkJoinPool(1);
+            Game game = new Game(false, false);
+            game.setBot(1, difficulty);
+            BenchmarkPositions.fill(game.getBoard(), BenchmarkPositions.stonesFor(stage));
+            ai = game.getGameAI1();
+            ai.setOpeningBook(null);
+            ai.setEndgameThreshold(0);
+            ai.setTimeBudget(0);
+            ai.setSearchDepthLimit(SEARCH_DEPTH);
+            ai.setPlayoutLimit(PLAYOUTS);
+            ai.setSearchPool(pool);
+        }
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            ai.setSeed(BenchmarkPositions.SEED);
+            ai.getTranspositionTable().clear();
+        }
+
+        @TearDown
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int[] quickMove(QuickMove state) {
+        return state.nextPosition().getBotMove(false);
+    }
+
+    @Benchmark
+    public int[] searchMove(SearchMove state) {
+        return state.ai.getBotMove(false);
+    }
+}
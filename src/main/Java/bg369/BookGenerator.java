@@ -0,0 +1,109 @@
+package bg369;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import game.BitBoard;
+import game.Symmetry;
+import game.ai.AlphaBetaSearch;
+import game.ai.GameAI;
+import game.ai.OpeningBook;
+import game.ai.TranspositionTable;
+
+// Offline opening book generator: searches every distinct position of the first plies with the alpha-beta search
+// and writes the best moves to a book file for OpeningBook.
+// Usage: --book-gen [--out FILE] [--plies N] [--budget MILLIS] [--threads N]
+public class BookGenerator {
+    static final String COMMAND = "--book-gen";
+
+    private String out = OpeningBook.DEFAULT_PATH;
+    private int plies = 2;
+    private long budgetMillis = 2000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public static void main(String[] args) {
+        BookGenerator generator = new BookGenerator();
+        if (generator.options().parse(args)) {
+            generator.run();
+        }
+    }
+
+    private CommandLine options() {
+        return new CommandLine(COMMAND)
+                .option("--out", "FILE", value -> out = value)
+                .intOption("--plies", "N", value -> plies = value)
+                .longOption("--budget", "MILLIS", value -> budgetMillis = value)
+                .intOption("--threads", "N", value -> threads = value)
+                .check(() -> plies > 0 && plies < BitBoard.CELLS && budgetMillis > 0 && threads > 0);
+    }
+
+    private void run() {
+        // Distinct canonical positions with fewer than `plies` stones, level by level
+        List<BitBoard> positions = new ArrayList<>();
+        List<BitBoard> level = new ArrayList<>();
+        level.add(new BitBoard());
+        for (int ply = 0; ply < plies; ply++) {
+            positions.addAll(level);
+            if (ply == plies - 1) {
+                break;
+            }
+            Set<Long> seen = new HashSet<>();
+            List<BitBoard> next = new ArrayList<>();
+            for (BitBoard position : level) {
+                for (int cell = position.nextEmpty(0); cell >= 0; cell = position.nextEmpty(cell + 1)) {
+                    BitBoard child = position.copy();
+                    child.place(cell, 1);
+                    int symmetry = Symmetry.canonicalOccupancySymmetry(child);
+                    if (seen.add(Symmetry.occupancyKey(child, symmetry))) {
+                        BitBoard canonical = new BitBoard();
+                        Symmetry.transform(child, symmetry, canonical);
+                        next.add(canonical);
+                    }
+                }
+            }
+            level = next;
+        }
+        System.out.printf("Searching %d positions for %d ms each on %d threads%n", positions.size(), budgetMillis, threads);
+
+        int count = positions.size();
+        long[] keys = new long[count];
+        int[] moves = new int[count];
+        int[] scores = new int[count];
+        int[] depths = new int[count];
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                results.add(executor.submit(() -> {
+                    AlphaBetaSearch search = new AlphaBetaSearch(new TranspositionTable(GameAI.DEFAULT_TABLE_ENTRIES));
+                    for (int i = first; i < count; i += threads) {
+                        BitBoard position = positions.get(i);
+                        keys[i] = position.getOccupancyKey();
+                        moves[i] = search.search(position, 1, budgetMillis, 0);
+                        scores[i] = search.getBestValue();
+                        depths[i] = search.getCompletedDepth();
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            OpeningBook.write(Paths.get(out), keys, moves, scores, depths, count);
+        } catch (InterruptedException | ExecutionException | IOException e) {
+            System.out.println("Book generation failed: " + e);
+            return;
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.printf("Wrote %d positions to %s in %.1f s%n", count, out, (System.nanoTime() - start) / 1e9);
+    }
+}
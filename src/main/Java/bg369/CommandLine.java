@@ -0,0 +1,64 @@
+package bg369;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+// Options of a command-line tool: the tool's command first, then "--option value" pairs in any order.
+// A tool declares each option with its setter, and a check of the values; parse applies them and prints the usage
+// when an option is unknown, a value is missing or malformed, or the check fails.
+final class CommandLine {
+    private final Map<String, Consumer<String>> setters = new HashMap<>();
+    private final StringBuilder usage;
+    private BooleanSupplier check = () -> true;
+
+    CommandLine(String command) {
+        usage = new StringBuilder("Usage: ").append(command);
+    }
+
+    CommandLine option(String name, String valueName, Consumer<String> setter) {
+        setters.put(name, setter);
+        usage.append(" [").append(name).append(' ').append(valueName).append(']');
+        return this;
+    }
+
+    CommandLine intOption(String name, String valueName, IntConsumer setter) {
+        return option(name, valueName, value -> setter.accept(Integer.parseInt(value)));
+    }
+
+    CommandLine longOption(String name, String valueName, LongConsumer setter) {
+        return option(name, valueName, value -> setter.accept(Long.parseLong(value)));
+    }
+
+    // Condition the values must meet once all options are applied
+    CommandLine check(BooleanSupplier check) {
+        this.check = check;
+        return this;
+    }
+
+    // Apply the options that follow the command; false, with the usage printed, if they are not valid
+    boolean parse(String[] args) {
+        if (!apply(args)) {
+            System.out.println(usage);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean apply(String[] args) {
+        try {
+            for (int i = 1; i < args.length; i += 2) {
+                Consumer<String> setter = setters.get(args[i]);
+                if (setter == null || i + 1 == args.length) {
+                    return false;
+                }
+                setter.accept(args[i + 1]);
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return check.getAsBoolean();
+    }
+}
@@ -0,0 +1,161 @@
+package bg369;
+import game.BitBoard;
+import game.Game;
+import game.Symmetry;
+import game.ai.GameAI;
+
+// Measures how much cache capacity occupancy keys save over colour-aware keys.
+// Plays self-play games and, from every position of them, walks the full search tree a few plies deep the way a
+// search without cutoffs would, counting the distinct positions a table keyed on each scheme would have to hold:
+// colour-aware Zobrist keys, occupancy keys, and canonical occupancy keys (occupancy merged over the 8 symmetries).
+// Usage: --memo-report [--games N] [--depth N] [--ai DIFFICULTY] [--seed N]
+public class MemoReport {
+    static final String COMMAND = "--memo-report";
+
+    private int games = 4;
+    private int depth = 3;
+    private int difficulty = 2;
+    private long seed = 369;
+
+    private final BitBoard board = new BitBoard();
+    private final LongSet colourKeys = new LongSet();
+    private final LongSet occupancyKeys = new LongSet();
+    private final LongSet canonicalKeys = new LongSet();
+    // Totals over all search roots of the corpus
+    private long roots;
+    private long nodes;
+    private long colourTotal;
+    private long occupancyTotal;
+    private long canonicalTotal;
+
+    public static void main(String[] args) {
+        MemoReport report = new MemoReport();
+        if (report.options().parse(args)) {
+            report.run();
+        }
+    }
+
+    private CommandLine options() {
+        return new CommandLine(COMMAND)
+                .intOption("--games", "N", value -> games = value)
+                .intOption("--depth", "N", value -> depth = value)
+                .intOption("--ai", "DIFFICULTY", value -> difficulty = value)
+                .longOption("--seed", "N", value -> seed = value)
+                .check(() -> games > 0 && depth > 0 && depth <= 4 && difficulty >= 1 && difficulty <= 5);
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        Game game = new Game(false, false);
+        game.setBot(1, difficulty);
+        game.setBot(2, difficulty);
+        GameAI[] players = { game.getGameAI1(), game.getGameAI2() };
+        for (int i = 0; i < players.length; i++) {
+            players[i].setSeed(seed + i);
+        }
+        for (int g = 0; g < games; g++) {
+            game.initGame();
+            int player = 1;
+            while (!game.isBoardFull()) {
+                measure(game.getBoard().getBitBoard());
+                int[] move = players[player - 1].getBotMove(false);
+                game.getBoard().applyMove(move[0], move[1], player);
+                player = 3 - player;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d self-play games (difficulty %d), %d search roots, %d nodes at depth %d%n",
+                games, difficulty, roots, nodes, depth);
+        System.out.printf("Colour-aware keys:        %,12d entries%n", colourTotal);
+        System.out.printf("Occupancy keys:           %,12d entries  (%.2fx fewer, %.1f%% saved)%n",
+                occupancyTotal, (double) colourTotal / occupancyTotal, 100.0 * (colourTotal - occupancyTotal) / colourTotal);
+        System.out.printf("Canonical occupancy keys: %,12d entries  (%.2fx fewer, %.1f%% saved)%n",
+                canonicalTotal, (double) colourTotal / canonicalTotal, 100.0 * (colourTotal - canonicalTotal) / colourTotal);
+        System.out.printf("Time: %.2f s%n", seconds);
+    }
+
+    // Count the distinct positions of one search: every node within `depth` plies of the root, root excluded
+    private void measure(BitBoard root) {
+        board.copyFrom(root);
+        colourKeys.clear();
+        occupancyKeys.clear();
+        canonicalKeys.clear();
+        int player = root.stoneCount() % 2 == 0 ? 1 : 2;
+        walk(depth, player);
+        roots++;
+        colourTotal += colourKeys.size();
+        occupancyTotal += occupancyKeys.size();
+        canonicalTotal += canonicalKeys.size();
+    }
+
+    private void walk(int remaining, int player) {
+        for (int cell = board.nextEmpty(0); cell >= 0; cell = board.nextEmpty(cell + 1)) {
+            board.place(cell, player);
+            nodes++;
+            colourKeys.add(board.getKey());
+            // The canonical key is a function of the occupancy, so it only needs computing for a new one
+            if (occupancyKeys.add(board.getOccupancyKey())) {
+                canonicalKeys.add(Symmetry.canonicalOccupancyKey(board));
+            }
+            if (remaining > 1) {
+                walk(remaining - 1, 3 - player);
+            }
+            board.remove(cell);
+        }
+    }
+
+    // Open addressing set of longs, keeps the counts of a few million keys off the boxed collections
+    private static final class LongSet {
+        private long[] slots = new long[1 << 16];
+        private boolean hasZero;
+        private int size;
+
+        boolean add(long key) {
+            if (key == 0) {
+                boolean added = !hasZero;
+                hasZero = true;
+                size += added ? 1 : 0;
+                return added;
+            }
+            int mask = slots.length - 1;
+            int i = (int) (key ^ key >>> 32) * 0x9E3779B9 & mask;
+            while (slots[i] != 0) {
+                if (slots[i] == key) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = key;
+            if (++size * 2 > slots.length) {
+                grow();
+            }
+            return true;
+        }
+
+        private void grow() {
+            long[] old = slots;
+            slots = new long[old.length * 2];
+            int mask = slots.length - 1;
+            for (long key : old) {
+                if (key != 0) {
+                    int i = (int) (key ^ key >>> 32) * 0x9E3779B9 & mask;
+                    while (slots[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    slots[i] = key;
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            java.util.Arrays.fill(slots, 0);
+            hasZero = false;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package bg369;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import game.BitBoard;
+import game.Game;
+import game.ai.AlphaBetaSearch;
+import game.ai.GameAI;
+import game.ai.TranspositionTable;
+
+// Scaling of the Lazy SMP alpha-beta search: for 1, 2, 4, ... threads up to the core count, searches a set of
+// midgame positions from seeded self-play and reports nodes per second with a fixed time budget and the time
+// to complete a fixed depth, each with its speedup over one thread. Every search starts from an empty table.
+// Usage: --smp-report [--max-threads N] [--positions N] [--depth N] [--budget MILLIS] [--seed N]
+public class SmpReport {
+    static final String COMMAND = "--smp-report";
+
+    private int maxThreads = Runtime.getRuntime().availableProcessors();
+    private int positionCount = 8;
+    private int depth = 6;
+    private long budgetMillis = 1000;
+    private long seed = 369;
+
+    public static void main(String[] args) {
+        SmpReport report = new SmpReport();
+        if (report.options().parse(args)) {
+            report.run();
+        }
+    }
+
+    private CommandLine options() {
+        return new CommandLine(COMMAND)
+                .intOption("--max-threads", "N", value -> maxThreads = value)
+                .intOption("--positions", "N", value -> positionCount = value)
+                .intOption("--depth", "N", value -> depth = value)
+                .longOption("--budget", "MILLIS", value -> budgetMillis = value)
+                .longOption("--seed", "N", value -> seed = value)
+                .check(() -> maxThreads > 0 && positionCount > 0 && depth > 0 && budgetMillis > 0);
+    }
+
+    private void run() {
+        List<BitBoard> positions = positions();
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(maxThreads);
+        System.out.printf("%d positions, %d ms per search for nodes/s, depth %d for time to depth, %d cores%n",
+                positions.size(), budgetMillis, depth, Runtime.getRuntime().availableProcessors());
+        System.out.println("threads      nodes/s  speedup   time to depth  speedup");
+
+        double baseNodesPerSecond = 0;
+        double baseSeconds = 0;
+        for (int threads : threadCounts) {
+            ForkJoinPool pool = new ForkJoinPool(Math.max(threads - 1, 1));
+            TranspositionTable table = new TranspositionTable(GameAI.DEFAULT_TABLE_ENTRIES);
+            AlphaBetaSearch search = new AlphaBetaSearch(table);
+            search.setThreads(threads, pool);
+            long nodes = 0;
+            long nodesNanos = 0;
+            long depthNanos = 0;
+            for (BitBoard position : positions) {
+                int player = position.stoneCount() % 2 == 0 ? 1 : 2;
+                table.clear();
+                search.search(position, player, budgetMillis, 0);
+                nodes += search.getNodes();
+                nodesNanos += search.getElapsedNanos();
+                table.clear();
+                search.search(position, player, 0, depth);
+                depthNanos += search.getElapsedNanos();
+            }
+            pool.shutdown();
+            double nodesPerSecond = nodes * 1e9 / nodesNanos;
+            double seconds = depthNanos / 1e9;
+            if (threads == 1) {
+                baseNodesPerSecond = nodesPerSecond;
+                baseSeconds = seconds;
+            }
+            System.out.printf("%7d %12.0f %7.2fx %13.2f s %7.2fx%n",
+                    threads, nodesPerSecond, nodesPerSecond / baseNodesPerSecond, seconds, baseSeconds / seconds);
+        }
+    }
+
+    // Midgame positions, one per seeded medium-vs-medium game after 16 to 40 stones
+    private List<BitBoard> positions() {
+        List<BitBoard> positions = new ArrayList<>();
+        Game game = new Game(false, false);
+        game.setBot(1, 2);
+        game.setBot(2, 2);
+        GameAI[] players = { game.getGameAI1(), game.getGameAI2() };
+        for (int i = 0; i < positionCount; i++) {
+            game.initGame();
+            for (int p = 0; p < players.length; p++) {
+                players[p].setSeed(seed + 2L * i + p);
+            }
+            int stones = 16 + (i * 7) % 25;
+            for (int player = 1; game.getBoard().getEmptyCount() > BitBoard.CELLS - stones; player = 3 - player) {
+                int[] move = players[player - 1].getBotMove(false);
+                game.getBoard().applyMove(move[0], move[1], player);
+            }
+            positions.add(game.getBoard().getBitBoard().copy());
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,113 @@
+package bg369;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import game.Game;
+import game.ai.GameAI;
+
+// Headless self-play runner: plays N games between two AI configurations on all cores
+// and reports win/draw/loss, average scores and games per second.
+// Game i (counting down from N) is seeded from --seed and i, and the first player alternates from game to game, so the
+// result does not depend on which thread plays which game; searches stopped by the clock still vary from run to run.
+// Usage: --tournament [--games N] [--ai1 DIFFICULTY] [--ai2 DIFFICULTY] [--threads N] [--budget MILLIS | --clock MILLIS]
+//        [--seed N]
+public class Tournament {
+    static final String COMMAND = "--tournament";
+
+    private int games = 1000;
+    private int difficulty1 = 2;
+    private int difficulty2 = 2;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long budgetMillis = GameAI.DEFAULT_TIME_BUDGET;
+    private long clockMillis; // Clock per game and AI instead of a budget per move, 0 for none
+    private long seed = 369;
+
+    // Totals of one worker; [0]: AI1 wins, [1]: draws, [2]: AI2 wins, [3]: AI1 points, [4]: AI2 points
+    private static final int WINS1 = 0, DRAWS = 1, WINS2 = 2, POINTS1 = 3, POINTS2 = 4;
+
+    public static void main(String[] args) {
+        Tournament tournament = new Tournament();
+        if (tournament.options().parse(args)) {
+            tournament.run();
+        }
+    }
+
+    private CommandLine options() {
+        return new CommandLine(COMMAND)
+                .intOption("--games", "N", value -> games = value)
+                .intOption("--ai1", "DIFFICULTY", value -> difficulty1 = value)
+                .intOption("--ai2", "DIFFICULTY", value -> difficulty2 = value)
+                .intOption("--threads", "N", value -> threads = value)
+                .longOption("--budget", "MILLIS", value -> budgetMillis = value)
+                .longOption("--clock", "MILLIS", value -> clockMillis = value)
+                .longOption("--seed", "N", value -> seed = value)
+                .check(() -> games > 0 && threads > 0 && budgetMillis > 0 && clockMillis >= 0
+                        && difficulty1 >= 1 && difficulty1 <= 5 && difficulty2 >= 1 && difficulty2 <= 5);
+    }
+
+    private void run() {
+        AtomicInteger remaining = new AtomicInteger(games);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> playGames(remaining)));
+        }
+        long[] totals = new long[5];
+        try {
+            for (Future<long[]> result : results) {
+                long[] worker = result.get();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += worker[i];
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            System.out.println("Tournament failed: " + e);
+            return;
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("AI1 (difficulty %d) vs AI2 (difficulty %d), %d games on %d threads%n", difficulty1, difficulty2, games, threads);
+        System.out.printf("AI1 wins: %d (%.1f%%)  draws: %d (%.1f%%)  AI2 wins: %d (%.1f%%)%n",
+                totals[WINS1], 100.0 * totals[WINS1] / games,
+                totals[DRAWS], 100.0 * totals[DRAWS] / games,
+                totals[WINS2], 100.0 * totals[WINS2] / games);
+        System.out.printf("Average score: AI1 %.2f  AI2 %.2f%n", (double) totals[POINTS1] / games, (double) totals[POINTS2] / games);
+        System.out.printf("Time: %.2f s  (%.1f games/s)%n", seconds, games / seconds);
+    }
+
+    // Play games until the shared counter runs out, reusing one Game and its two AIs
+    private long[] playGames(AtomicInteger remaining) {
+        long[] totals = new long[5];
+        Game game = new Game(false, false);
+        game.setBot(1, difficulty1);
+        game.setBot(2, difficulty2);
+        GameAI[] players = {game.getGameAI1(), game.getGameAI2()};
+        for (GameAI ai : players) {
+            if (clockMillis > 0) {
+                ai.setGameClock(clockMillis);
+            } else {
+                ai.setTimeBudget(budgetMillis);
+            }
+        }
+        for (int index = remaining.getAndDecrement(); index > 0; index = remaining.getAndDecrement()) {
+            for (int p = 0; p < players.length; p++) {
+                players[p].setSeed(seed + 2L * index + p);
+            }
+            game.initGame(index % 2 + 1);
+            game.headlessPlay();
+            int winner = game.getWinner();
+            totals[winner == 1 ? WINS1 : winner == 2 ? WINS2 : DRAWS]++;
+            totals[POINTS1] += game.getPlayerScore(1);
+            totals[POINTS2] += game.getPlayerScore(2);
+        }
+        return totals;
+    }
+}
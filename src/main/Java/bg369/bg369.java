@@ -13,6 +13,9 @@ import myutil.Localization;
 public class bg369 {
     @SuppressWarnings("unused")
     public static void main(String[] args) {
+        if (runTool(args)) {
+            return;
+        }
         try {
             // Set System.out to use UTF-8 encoding
             System.setOut(new PrintStream(System.out, true, "UTF-8"));
@@ -76,5 +79,22 @@ public class bg369 {
             Game game = new Game(false, true);
         }
     }
-    
+
+    // Batch self-play, book generation and reports from the command line skip the dialogs, console game and localization.
+    // Returns false when the first argument names no tool
+    private static boolean runTool(String[] args) {
+        if (args.length == 0) {
+            return false;
+        }
+        switch (args[0]) {
+            case Tournament.COMMAND -> Tournament.main(args);
+            case BookGenerator.COMMAND -> BookGenerator.main(args);
+            case MemoReport.COMMAND -> MemoReport.main(args);
+            case SmpReport.COMMAND -> SmpReport.main(args);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
 }
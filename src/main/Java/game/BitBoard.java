@@ -0,0 +1,417 @@
+package game;
+
+// Bitboard engine behind Board.
+// Each player's stones are kept as a 128-bit mask made of two longs (lo: bits 0-63, hi: bits 64-80),
+// with bit index = row * 9 + col. Alongside, the occupancy of every line of LinePatterns is kept as a 9-bit mask,
+// updated on each place/remove, so runs and scores come from bit tricks and table lookups on one mask
+// instead of a cell-by-cell walk.
+public final class BitBoard {
+    public static final int SIZE = 9;
+    public static final int CELLS = SIZE * SIZE;
+
+    private static final long BOARD_HI = (1L << (CELLS - 64)) - 1;
+
+    // Zobrist keys: one random 64-bit number per (player, cell), fixed seed so keys are stable between runs
+    private static final long[][] ZOBRIST = new long[2][CELLS];
+    // Per cell: the cells on its row, column and diagonals (itself included), as lo/hi masks
+    private static final long[] LINES_LO = new long[CELLS];
+    private static final long[] LINES_HI = new long[CELLS];
+    // Shifts of the board masks for one step right, down-left, down and down-right, and their column change
+    private static final int[] STEPS = { 1, SIZE - 1, SIZE, SIZE + 1 };
+    private static final int[] STEP_COLUMNS = { 1, -1, 0, 1 };
+    // Per column change -2..2 (index + 2): the cells a shifted stone can land on without wrapping to another row
+    private static final long[] KEEP_LO = new long[5];
+    private static final long[] KEEP_HI = new long[5];
+
+    static {
+        java.util.Random random = new java.util.Random(0x369B0A2DL);
+        for (int player = 0; player < 2; player++) {
+            for (int cell = 0; cell < CELLS; cell++) {
+                ZOBRIST[player][cell] = random.nextLong();
+            }
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            for (int columns = -2; columns <= 2; columns++) {
+                if (colOf(cell) - columns >= 0 && colOf(cell) - columns < SIZE) {
+                    if (cell < 64) {
+                        KEEP_LO[columns + 2] |= 1L << cell;
+                    } else {
+                        KEEP_HI[columns + 2] |= 1L << (cell - 64);
+                    }
+                }
+            }
+            for (int other = 0; other < CELLS; other++) {
+                int row = rowOf(cell), col = colOf(cell), otherRow = rowOf(other), otherCol = colOf(other);
+                if (row == otherRow || col == otherCol || row - col == otherRow - otherCol || row + col == otherRow + otherCol) {
+                    if (other < 64) {
+                        LINES_LO[cell] |= 1L << other;
+                    } else {
+                        LINES_HI[cell] |= 1L << (other - 64);
+                    }
+                }
+            }
+        }
+    }
+
+    private long p1Lo, p1Hi; // player 1 stones
+    private long p2Lo, p2Hi; // player 2 stones
+    private long key; // Zobrist key of the position, updated on every place/remove
+    private long occupancyKey; // Zobrist key of the occupied cells alone, see getOccupancyKey
+    private final int[] lineMasks = new int[LinePatterns.LINES]; // Occupancy per line, bit i for the line's i-th cell
+
+    public BitBoard() {
+    }
+
+    public BitBoard copy() {
+        BitBoard copy = new BitBoard();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    public void copyFrom(BitBoard other) {
+        p1Lo = other.p1Lo;
+        p1Hi = other.p1Hi;
+        p2Lo = other.p2Lo;
+        p2Hi = other.p2Hi;
+        key = other.key;
+        occupancyKey = other.occupancyKey;
+        System.arraycopy(other.lineMasks, 0, lineMasks, 0, LinePatterns.LINES);
+    }
+
+    public void clear() {
+        p1Lo = p1Hi = p2Lo = p2Hi = 0;
+        key = 0;
+        occupancyKey = 0;
+        java.util.Arrays.fill(lineMasks, 0);
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    // Zobrist key of the occupied cells alone, every stone hashed as player 1.
+    // Scoring ignores who owns a stone: a move scores the lines it completes whatever their colours, so the points
+    // still to be made, and the value of a position for the side to move, only depend on which cells are occupied.
+    // Positions that differ only in colouring or move order share this key, and neither the side to move nor the
+    // score so far needs to be part of it. The search tables, the endgame solver and the opening book rely on this.
+    public long getOccupancyKey() {
+        return occupancyKey;
+    }
+
+    public static long zobrist(int player, int cell) {
+        return ZOBRIST[player - 1][cell];
+    }
+
+    public static int cellOf(int row, int col) {
+        return row * SIZE + col;
+    }
+
+    public static int rowOf(int cell) {
+        return cell / SIZE;
+    }
+
+    public static int colOf(int cell) {
+        return cell % SIZE;
+    }
+
+    // 0 represents empty, 1 represents player 1, 2 represents player 2
+    public int getCell(int cell) {
+        if (cell < 64) {
+            long bit = 1L << cell;
+            return (p1Lo & bit) != 0 ? 1 : (p2Lo & bit) != 0 ? 2 : 0;
+        }
+        long bit = 1L << (cell - 64);
+        return (p1Hi & bit) != 0 ? 1 : (p2Hi & bit) != 0 ? 2 : 0;
+    }
+
+    public boolean isOccupied(int cell) {
+        if (cell < 64) {
+            return ((p1Lo | p2Lo) & (1L << cell)) != 0;
+        }
+        return ((p1Hi | p2Hi) & (1L << (cell - 64))) != 0;
+    }
+
+    // Occupied cells 0-63 and 64-80 as bit masks
+    public long occupiedLo() {
+        return p1Lo | p2Lo;
+    }
+
+    public long occupiedHi() {
+        return p1Hi | p2Hi;
+    }
+
+    public int stoneCount() {
+        return Long.bitCount(p1Lo | p2Lo) + Long.bitCount(p1Hi | p2Hi);
+    }
+
+    public int emptyCount() {
+        return CELLS - stoneCount();
+    }
+
+    // First empty cell at or after the given cell in row-major order, -1 if there is none.
+    // Iterate with: for (int cell = nextEmpty(0); cell >= 0; cell = nextEmpty(cell + 1))
+    public int nextEmpty(int from) {
+        if (from < 64) {
+            long free = ~(p1Lo | p2Lo) & (-1L << from);
+            if (free != 0) {
+                return Long.numberOfTrailingZeros(free);
+            }
+            from = 64;
+        }
+        if (from < CELLS) {
+            long free = ~(p1Hi | p2Hi) & BOARD_HI & (-1L << (from - 64));
+            if (free != 0) {
+                return 64 + Long.numberOfTrailingZeros(free);
+            }
+        }
+        return -1;
+    }
+
+    // First occupied cell at or after the given cell in row-major order, -1 if there is none
+    public int nextStone(int from) {
+        if (from < 64) {
+            long stones = (p1Lo | p2Lo) & (-1L << from);
+            if (stones != 0) {
+                return Long.numberOfTrailingZeros(stones);
+            }
+            from = 64;
+        }
+        if (from < CELLS) {
+            long stones = (p1Hi | p2Hi) & (-1L << (from - 64));
+            if (stones != 0) {
+                return 64 + Long.numberOfTrailingZeros(stones);
+            }
+        }
+        return -1;
+    }
+
+    // The n-th (0-based) empty cell in row-major order
+    public int nthEmpty(int n) {
+        long free = ~(p1Lo | p2Lo);
+        int base = 0;
+        int count = Long.bitCount(free);
+        if (n >= count) {
+            n -= count;
+            free = ~(p1Hi | p2Hi) & BOARD_HI;
+            base = 64;
+        }
+        for (int i = 0; i < n; i++) {
+            free &= free - 1;
+        }
+        return free != 0 ? base + Long.numberOfTrailingZeros(free) : -1;
+    }
+
+    // Put a stone of the given player on an empty cell
+    public void place(int cell, int player) {
+        key ^= ZOBRIST[player - 1][cell];
+        occupancyKey ^= ZOBRIST[0][cell];
+        if (cell < 64) {
+            long bit = 1L << cell;
+            if (player == 1) p1Lo |= bit; else p2Lo |= bit;
+        } else {
+            long bit = 1L << (cell - 64);
+            if (player == 1) p1Hi |= bit; else p2Hi |= bit;
+        }
+        for (int direction = 0; direction < 4; direction++) {
+            lineMasks[LinePatterns.lineOf(direction, cell)] |= 1 << LinePatterns.indexOf(direction, cell);
+        }
+    }
+
+    // Take the stone off a cell
+    public void remove(int cell) {
+        int player = getCell(cell);
+        if (player == 0) {
+            return;
+        }
+        key ^= ZOBRIST[player - 1][cell];
+        occupancyKey ^= ZOBRIST[0][cell];
+        if (cell < 64) {
+            long bit = ~(1L << cell);
+            p1Lo &= bit;
+            p2Lo &= bit;
+        } else {
+            long bit = ~(1L << (cell - 64));
+            p1Hi &= bit;
+            p2Hi &= bit;
+        }
+        for (int direction = 0; direction < 4; direction++) {
+            lineMasks[LinePatterns.lineOf(direction, cell)] &= ~(1 << LinePatterns.indexOf(direction, cell));
+        }
+    }
+
+    // Put a stone and return the score it earns
+    public int placeAndScore(int cell, int player) {
+        place(cell, player);
+        return scoreAt(cell);
+    }
+
+    // Score earned by the stone on the given cell: every direction whose run is a multiple of 3 adds its length
+    public int scoreAt(int cell) {
+        int score = 0;
+        for (int direction = 0; direction < 4; direction++) {
+            int line = LinePatterns.lineOf(direction, cell);
+            score += LinePatterns.score(lineMask(line), LinePatterns.indexOf(direction, cell));
+        }
+        return score;
+    }
+
+    // Fill gains[cell] with the points a stone on each empty cell would earn (0 for occupied cells), in one pass
+    // over the lines. This is the scoring kernel behind both Board and GameAI.
+    public void gains(int[] gains) {
+        java.util.Arrays.fill(gains, 0, CELLS, 0);
+        for (int line = 0; line < LinePatterns.LINES; line++) {
+            int mask = lineMasks[line];
+            for (int empty = ~mask & ((1 << LinePatterns.length(line)) - 1); empty != 0; empty &= empty - 1) {
+                int index = Integer.numberOfTrailingZeros(empty);
+                gains[LinePatterns.cellAt(line, index)] += LinePatterns.gain(mask, index);
+            }
+        }
+    }
+
+    // Points a stone on the empty cell would earn, the per-cell version of gains
+    public int gainAt(int cell) {
+        int gain = 0;
+        for (int direction = 0; direction < 4; direction++) {
+            gain += LinePatterns.gain(lineMasks[LinePatterns.lineOf(direction, cell)], LinePatterns.indexOf(direction, cell));
+        }
+        return gain;
+    }
+
+    // Empty cells at most two cells from a stone along a row, column or diagonal, into cells[0] (cells 0-63) and
+    // cells[1] (64-80). Any other ("quiet") empty cell gains nothing, and after a stone on it every other cell
+    // gains what it gained before, so all quiet cells are worth the same as a move.
+    public void relevantCells(long[] cells) {
+        long occupiedLo = p1Lo | p2Lo;
+        long occupiedHi = p1Hi | p2Hi;
+        long lo = 0;
+        long hi = 0;
+        // Spread every stone one and two steps both ways in each direction
+        for (int direction = 0; direction < 4; direction++) {
+            for (int distance = 1; distance <= 2; distance++) {
+                int shift = STEPS[direction] * distance;
+                int columns = STEP_COLUMNS[direction] * distance;
+                lo |= occupiedLo << shift & KEEP_LO[2 + columns];
+                hi |= (occupiedHi << shift | occupiedLo >>> (64 - shift)) & KEEP_HI[2 + columns];
+                lo |= (occupiedLo >>> shift | occupiedHi << (64 - shift)) & KEEP_LO[2 - columns];
+                hi |= occupiedHi >>> shift & KEEP_HI[2 - columns];
+            }
+        }
+        cells[0] = lo & ~occupiedLo;
+        cells[1] = hi & ~occupiedHi & BOARD_HI;
+    }
+
+    // Best reply after a stone on the empty cell, given gains filled by gains for the current position.
+    // Returns (reply gain << 8) | (reply cell + 1); the reply is the first cell in row-major order with the highest
+    // positive gain, or none (0 in the low byte) when no reply gains anything.
+    // Only the four lines through the cell change, so other cells keep their gain and the rest is a line delta.
+    public int bestReply(int cell, int[] gains) {
+        int best = 0;
+        int reply = -1;
+        for (int other = nextEmpty(0); other >= 0; other = nextEmpty(other + 1)) {
+            if (other == cell) {
+                continue;
+            }
+            int gain = gains[other];
+            for (int direction = 0; direction < 4; direction++) {
+                int line = LinePatterns.lineOf(direction, cell);
+                if (LinePatterns.lineOf(direction, other) == line) {
+                    // Two cells share at most one line
+                    int mask = lineMasks[line];
+                    int index = LinePatterns.indexOf(direction, other);
+                    gain += LinePatterns.gain(mask | 1 << LinePatterns.indexOf(direction, cell), index)
+                            - LinePatterns.gain(mask, index);
+                    break;
+                }
+            }
+            if (gain > best) {
+                best = gain;
+                reply = other;
+            }
+        }
+        return best << 8 | (reply + 1);
+    }
+
+    // Put the cells with a positive gain into ranked, highest gain first and in row-major order among equal gains;
+    // returns how many there are. Most cells gain nothing, so the list is short.
+    public static int rankGains(int[] gains, int[] ranked) {
+        int count = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int gain = gains[cell];
+            if (gain > 0) {
+                int i = count++;
+                while (i > 0 && gains[ranked[i - 1]] < gain) {
+                    ranked[i] = ranked[i - 1];
+                    i--;
+                }
+                ranked[i] = cell;
+            }
+        }
+        return count;
+    }
+
+    // Same result as bestReply, given the cells ranked by rankGains for the current position.
+    // A cell off the four lines through the cell keeps its gain, so the best of those is the first such ranked cell;
+    // only the empty cells on the four lines are rescored. The cost is the length of the lines, not the board area.
+    public int bestReply(int cell, int[] gains, int[] ranked, int rankedCount) {
+        int best = 0;
+        int reply = -1;
+        long linesLo = LINES_LO[cell];
+        long linesHi = LINES_HI[cell];
+        for (int i = 0; i < rankedCount; i++) {
+            int other = ranked[i];
+            long onLines = other < 64 ? linesLo >>> other : linesHi >>> (other - 64);
+            if ((onLines & 1) == 0) {
+                best = gains[other];
+                reply = other;
+                break;
+            }
+        }
+        for (int direction = 0; direction < 4; direction++) {
+            int line = LinePatterns.lineOf(direction, cell);
+            int mask = lineMasks[line];
+            int placed = mask | 1 << LinePatterns.indexOf(direction, cell);
+            for (int empty = ~placed & ((1 << LinePatterns.length(line)) - 1); empty != 0; empty &= empty - 1) {
+                int index = Integer.numberOfTrailingZeros(empty);
+                int other = LinePatterns.cellAt(line, index);
+                int gain = gains[other] + LinePatterns.gain(placed, index) - LinePatterns.gain(mask, index);
+                if (gain > best || gain == best && gain > 0 && other < reply) {
+                    best = gain;
+                    reply = other;
+                }
+            }
+        }
+        return best << 8 | (reply + 1);
+    }
+
+    // Occupancy of a line of LinePatterns, bit i set when its i-th cell holds a stone
+    public int lineMask(int line) {
+        return lineMasks[line];
+    }
+
+    // The line masks themselves, for the vector kernel; read only
+    int[] lineMasks() {
+        return lineMasks;
+    }
+
+    // Run of consecutive stones through an occupied cell in one direction, packed as (start << 4) | length.
+    // The start is the first cell of the run in Board's walking order: left, top, top-left or bottom-left end.
+    public int runAt(int cell, int direction) {
+        int line = LinePatterns.lineOf(direction, cell);
+        int index = LinePatterns.indexOf(direction, cell);
+        int mask = lineMasks[line];
+        // The run ends below the first empty bit above the index and starts above the last empty bit below it
+        int length = Integer.numberOfTrailingZeros(~(mask >>> index));
+        int below = ~mask & ((1 << index) - 1);
+        int start = below == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(below);
+        length += index - start;
+        return (LinePatterns.cellAt(line, start) << 4) | length;
+    }
+
+    public static int runLength(int run) {
+        return run & 0xF;
+    }
+
+    public static int runStart(int run) {
+        return run >>> 4;
+    }
+}
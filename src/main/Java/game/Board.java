@@ -7,24 +7,45 @@ public class Board {
     private final java.util.List<int[]> markedPositions; // Each element is [row, col]
     private final java.util.Map<Integer, java.util.List<int[]>> directionMarks; // Stores markers by direction: direction -> coordinates list
     private final java.util.Map<Integer, Integer> directionScores; // Stores scores for each direction: direction -> score
-    private final java.util.List<int[]> empty;
+    private final BitBoard bits; // Per-player occupancy used for scoring
+    private int lastRow = -1; // Position of the highlighted last move, -1 if none
+    private int lastCol = -1;
+
+    // Move history for undoMove: played cell and highlighted cell before the move (-1 if none)
+    private final int[] historyCells;
+    private final int[] historyLast;
+    private int moveCount;
+    private int markedMove = -1; // History index of the move whose runs are marked, -1 if none
 
     public Board(int BOARD_SIZE) {
+        if (BOARD_SIZE != BitBoard.SIZE) {
+            throw new IllegalArgumentException("Unsupported board size: " + BOARD_SIZE);
+        }
         this.BOARD_SIZE = BOARD_SIZE;
+        bits = new BitBoard();
         grid = new int[BOARD_SIZE][BOARD_SIZE];
         markedPositions = new java.util.ArrayList<>();
         directionMarks = new java.util.HashMap<>();
         directionScores = new java.util.HashMap<>();
-        empty = new java.util.ArrayList<>();
-        for (int i = 0; i < BOARD_SIZE; i++) {  
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                empty.add(new int[]{i, j});
-            }
-        }
         // Initialize marker lists for four directions
         for (int i = 0; i < 4; i++) {
             directionMarks.put(i, new java.util.ArrayList<>());
         }
+        historyCells = new int[BitBoard.CELLS];
+        historyLast = new int[BitBoard.CELLS];
+    }
+
+    // Copy the position (grid, occupancy, last move and move history) of another board; marks are not copied
+    public void copyFrom(Board other) {
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            System.arraycopy(other.grid[i], 0, grid[i], 0, BOARD_SIZE);
+        }
+        bits.copyFrom(other.bits);
+        lastRow = other.lastRow;
+        lastCol = other.lastCol;
+        moveCount = other.moveCount;
+        System.arraycopy(other.historyCells, 0, historyCells, 0, moveCount);
+        System.arraycopy(other.historyLast, 0, historyLast, 0, moveCount);
     }
 
     public int[][] getBoard() {
@@ -35,6 +56,20 @@ public class Board {
         return grid[row][col];
     }
 
+    public BitBoard getBitBoard() {
+        return bits;
+    }
+
+    // 64-bit Zobrist key of the current position, maintained incrementally by applyMove/undoMove
+    public long getZobristKey() {
+        return bits.getKey();
+    }
+
+    // Key of the occupied cells only, shared by positions that differ just in stone colours
+    public long getOccupancyKey() {
+        return bits.getOccupancyKey();
+    }
+
     // Get all marked coordinates
     public java.util.List<int[]> getMarkedPositions() {
         return markedPositions;
@@ -71,19 +106,32 @@ public class Board {
         return positions.get(size / 2);
     }
 
+    // Snapshot of the empty cells as [row, col] pairs; search code should use nextEmpty/nthEmpty instead
     public java.util.List<int[]> getEmpty() {
+        java.util.List<int[]> empty = new java.util.ArrayList<>(bits.emptyCount());
+        for (int cell = bits.nextEmpty(0); cell >= 0; cell = bits.nextEmpty(cell + 1)) {
+            empty.add(new int[]{BitBoard.rowOf(cell), BitBoard.colOf(cell)});
+        }
         return empty;
     }
 
+    // Empty cells are the free bits of the bitboard, so counting, removing and restoring them is O(1)
+    public int getEmptyCount() {
+        return bits.emptyCount();
+    }
+
+    // First empty cell (row * 9 + col) at or after the given cell, -1 if there is none
+    public int nextEmpty(int fromCell) {
+        return bits.nextEmpty(fromCell);
+    }
+
+    // The n-th (0-based) empty cell in row-major order
+    public int nthEmpty(int n) {
+        return bits.nthEmpty(n);
+    }
+
     public boolean isFull() {
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                if (grid[i][j] == 0) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return bits.emptyCount() == 0;
     }
 
     // Clear all marks
@@ -149,120 +197,73 @@ public class Board {
     // Method to check consecutive pieces
     public int handleConsecutive(int row, int col, int currentPlayer) {
         clearMarks(); // Clear previous marks
-        // Remove current move position from empty list
-        empty.removeIf(pos -> pos[0] == row && pos[1] == col);
-        // Convert all grid values to 0-2 range (mod 3)
-        for (int[] grid1 : grid) {
-            for (int j = 0; j < grid1.length; j++) {
-                grid1[j] = grid1[j] % 3;
-            }
-        }
-        grid[row][col] = currentPlayer+3;
-        // Check for consecutive pieces
-        int[][] positions = findStartPosition(row, col);
-        int[] count = countConsecutive(positions);
-        int score = checkMultiples(count);
+        int score = applyMove(row, col, currentPlayer);
+        markedMove = moveCount - 1;
         if (score > 0) {
+            int[][] positions = new int[4][2]; // [0]: left, [1]: up, [2]: top-left, [3]: bottom-left; [i][0]: y, [i][1]: x
+            int[] count = new int[4];
+            findRuns(row, col, positions, count);
             markConsecutive(positions, count);
         }
         return score;
     }
 
-    private int[][] findStartPosition(int row, int col/* , int direction */) {
-        int[][] Positions = new int[4][2]; // [0]: left, [1]: up, [2]: top-left, [3]: bottom-left; [i][0]: y, [i][1]: x
-        Positions[0][0] = row; // left-right y remains same
-        Positions[1][1] = col; // up-down x remains same
-        // Check left direction start position
-        for (int jx = col - 1; jx >= -1; jx--) {
-            if (jx == -1) {
-                Positions[0][1] = 0; // left x
-                break;
-            }
-            if (grid[row][jx] == 0) {
-                Positions[0][1] = jx + 1; // left x
-                break;
-            }
-        }
-        // Check up direction start position
-        for (int iy = row - 1; iy >= -1; iy--) {
-            if (iy == -1) {
-                Positions[1][0] = 0; // up y
-                break;
-            }
-            if (grid[iy][col] == 0) {
-                Positions[1][0] = iy + 1; // up y
-                break;
-            }
-        }
-        // Check top-left direction start position
-        for (int iy = row - 1, jx = col - 1; iy >= -1 && jx >= -1; iy--, jx--) {
-            if (iy == -1 || jx == -1) {
-                Positions[2][0] = iy == -1 ? 0 : iy + 1; // top-left y
-                Positions[2][1] = jx == -1 ? 0 : jx + 1; // top-left x
-                break;
-            }
-            if (grid[iy][jx] == 0) {
-                Positions[2][0] = iy + 1; // top-left y
-                Positions[2][1] = jx + 1; // top-left x
-                break;
-            }
+    // Place a piece and return the score it earns, without touching the marks.
+    // The move can be reverted exactly with undoMove.
+    public int applyMove(int row, int col, int player) {
+        int cell = BitBoard.cellOf(row, col);
+        historyCells[moveCount] = cell;
+        historyLast[moveCount] = lastRow >= 0 ? BitBoard.cellOf(lastRow, lastCol) : -1;
+        moveCount++;
+        // Only the previous move still carries the last-move highlight (value + 3)
+        if (lastRow >= 0) {
+            grid[lastRow][lastCol] = grid[lastRow][lastCol] % 3;
         }
-        // Check bottom-left direction start position
-        for (int iy = row + 1, jx = col - 1; iy <= BOARD_SIZE && jx >= -1; iy++, jx--) {
-            if (iy == BOARD_SIZE || jx == -1) {
-                Positions[3][0] = iy == BOARD_SIZE ? BOARD_SIZE - 1 : iy - 1; // bottom-left y
-                Positions[3][1] = jx == -1 ? 0 : jx + 1; // bottom-left x
-                break;
-            }
-            if (grid[iy][jx] == 0) {
-                Positions[3][0] = iy - 1; // bottom-left y
-                Positions[3][1] = jx + 1; // bottom-left x
-                break;
-            }
-        }
-        return Positions;
+        grid[row][col] = player + 3;
+        lastRow = row;
+        lastCol = col;
+        return bits.placeAndScore(cell, player);
     }
 
-    private int[] countConsecutive(int[][] Positions/* , int direction */) {
-        int[] count = new int[4];
-        // From start position to opposite direction to find end position
-        // Return total number of consecutive pieces
-        // left-right, up-down, top-left to bottom-right, bottom-left to top-right
-
-        // from left to right
-        for (int jx = Positions[0][1]; jx < BOARD_SIZE && grid[Positions[0][0]][jx] != 0; jx++) {
-            count[0]++;
+    // Revert the last applyMove or handleConsecutive, restoring empty cells and the last-move highlight.
+    // Undoing a handleConsecutive clears its marks; the marks of earlier moves are not restored
+    public void undoMove() {
+        if (moveCount == 0) {
+            throw new IllegalStateException("No move to undo");
         }
-
-        // from up to down
-        for (int iy = Positions[1][0]; iy < BOARD_SIZE && grid[iy][Positions[1][1]] != 0; iy++) {
-            count[1]++;
+        moveCount--;
+        if (moveCount == markedMove) {
+            clearMarks();
+            markedMove = -1;
         }
-
-        // from top-left to bottom-right
-        for (int iy = Positions[2][0], jx = Positions[2][1]; iy < BOARD_SIZE && jx < BOARD_SIZE
-                && grid[iy][jx] != 0; iy++, jx++) {
-            count[2]++;
-        }
-
-        // from bottom-left to top-right
-        for (int iy = Positions[3][0], jx = Positions[3][1]; iy >= 0 && jx < BOARD_SIZE
-                && grid[iy][jx] != 0; iy--, jx++) {
-            count[3]++;
+        int cell = historyCells[moveCount];
+        int last = historyLast[moveCount];
+        bits.remove(cell);
+        grid[BitBoard.rowOf(cell)][BitBoard.colOf(cell)] = 0;
+        if (last >= 0) {
+            lastRow = BitBoard.rowOf(last);
+            lastCol = BitBoard.colOf(last);
+            grid[lastRow][lastCol] += 3;
+        } else {
+            lastRow = -1;
+            lastCol = -1;
         }
+    }
 
-        return count;
+    // Number of moves played on this board
+    public int getMoveCount() {
+        return moveCount;
     }
 
-    // Check multiples of 3 in all directions
-    private int checkMultiples(int[] count) {
-        // Check 4 directions (left, up, top-left, bottom-left)
-        int score = 0;
-        for (int i = 0; i < 4; i++) {
-            if (count[i] % 3 == 0 && count[i] > 0) {
-                score += count[i];
-            }
+    // Find the run through the placed stone in each direction from the bitboard
+    private void findRuns(int row, int col, int[][] Positions, int[] count) {
+        int cell = BitBoard.cellOf(row, col);
+        for (int direction = 0; direction < 4; direction++) {
+            int run = bits.runAt(cell, direction);
+            int start = BitBoard.runStart(run);
+            Positions[direction][0] = BitBoard.rowOf(start); // y
+            Positions[direction][1] = BitBoard.colOf(start); // x
+            count[direction] = BitBoard.runLength(run);
         }
-        return score;
     }
 }
\ No newline at end of file
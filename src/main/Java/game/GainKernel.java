@@ -0,0 +1,71 @@
+package game;
+
+// Backend that fills the gain of every empty cell of a position (see BitBoard.gains).
+// The scalar kernel always works. The vector kernel uses jdk.incubator.vector; it is picked at startup when asked for
+// with -Dbg369.vector=true and the module is present (--add-modules jdk.incubator.vector), otherwise the scalar one is.
+// With the Java 17 gathers it is not faster than the scalar kernel on the machines measured so far
+// (see GainKernelBenchmark), so it is off by default.
+// The vector kernel is compiled apart from the rest (src/vector/java), so only its compile sees the incubator module,
+// and it is loaded by name.
+// A kernel may keep scratch space, so each thread should use its own instance from create().
+public interface GainKernel {
+    void gains(BitBoard board, int[] gains);
+
+    String name();
+
+    GainKernel SCALAR = new GainKernel() {
+        @Override
+        public void gains(BitBoard board, int[] gains) {
+            board.gains(gains);
+        }
+
+        @Override
+        public String name() {
+            return "scalar";
+        }
+    };
+
+    // A kernel of the backend selected at startup
+    static GainKernel create() {
+        return VectorSupport.AVAILABLE ? VectorSupport.newKernel() : SCALAR;
+    }
+
+    static boolean isVectorAvailable() {
+        return VectorSupport.AVAILABLE;
+    }
+
+    // A vector kernel, whether or not it was selected at startup; needs isVectorAvailable()
+    static GainKernel vector() {
+        return VectorSupport.newKernel();
+    }
+
+    final class VectorSupport {
+        private static final String KERNEL_CLASS = "game.VectorGainKernel";
+        static final boolean AVAILABLE = probe();
+
+        private VectorSupport() {
+        }
+
+        private static boolean probe() {
+            if (!Boolean.getBoolean("bg369.vector")
+                    || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return false;
+            }
+            try {
+                // Loading the kernel fails if the vector classes cannot be linked
+                newKernel().gains(new BitBoard(), new int[BitBoard.CELLS]);
+                return true;
+            } catch (LinkageError | IllegalStateException e) {
+                return false;
+            }
+        }
+
+        static GainKernel newKernel() {
+            try {
+                return (GainKernel) Class.forName(KERNEL_CLASS).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("vector kernel not built: " + e);
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import myutil.Localization;
 import myutil.PrintUtils;
 import myutil.PrintUtils.PEnd;
 import myutil.PrintUtils.PVo;
+import myutil.Tracer;
 
 @SuppressWarnings("unused")
 public final class Game {
@@ -24,6 +25,8 @@ public final class Game {
     private final boolean isGUI;
     private final int BOARD_SIZE = 9;
     private GameGUI gui;
+    private volatile boolean abandoned; // Replaced by a new game in the GUI; bot moves still being chosen are dropped
+    private static final long CONSOLE_MOVE_DELAY = 700; // Least time a bot move takes in console play so it can be followed, in milliseconds
 
     public Game(boolean isGUI, boolean isAutoPlay) {
         board = new Board(BOARD_SIZE);
@@ -69,16 +72,23 @@ public final class Game {
     }
 
     public void initGame() {
+        initGame(new Random().nextInt(2) + 1);
+    }
+
+    // Start a new game with the given player (1 or 2) to move first
+    public void initGame(int firstPlayer) {
         board = new Board(BOARD_SIZE);
         if (gameAI1 != null) {
+            gameAI1.stopPondering();
             gameAI1.checkGame(this);
         }
         if (gameAI2 != null) {
+            gameAI2.stopPondering();
             gameAI2.checkGame(this);
         }
         playerScores = new int[2];
         gameOver = false;
-        currentPlayer = new Random().nextInt(2) + 1;
+        currentPlayer = firstPlayer;
     }
 
     public void play() {
@@ -105,24 +115,29 @@ public final class Game {
     public void setBot(int player, int difficulty) {
         if (player == 1) {
             if (gameAI1 == null || gameAI1.difficulty != difficulty) {  
+                if (gameAI1 != null) {
+                    gameAI1.stopPondering();
+                }
                 gameAI1 = new GameAI(this, difficulty, 1);
             }
             isBot[0] = 1;
         } else {
             if (gameAI2 == null || gameAI2.difficulty != difficulty) {
+                if (gameAI2 != null) {
+                    gameAI2.stopPondering();
+                }
                 gameAI2 = new GameAI(this, difficulty, 2);
             }
             isBot[1] = 1;
         }
     }
-    @SuppressWarnings("CallToPrintStackTrace")
     public void consolePlay() {
         int mode = PrintUtils.inputAs(Integer.class, Localization.getString("game.choose_mode")).get(0);
         if (mode == 1) {
             int diff1;
             while (true) {
                 diff1 = PrintUtils.inputAs(Integer.class, Localization.getString("game.choose_difficulty", "")).get(0);
-                if (diff1 == 1 || diff1 == 2 || diff1 == 3) {
+                if (diff1 >= 1 && diff1 <= 5) {
                     break;  
                 }
             }
@@ -132,14 +147,14 @@ public final class Game {
             int diff1;
             while (true) {
                 diff1 = PrintUtils.inputAs(Integer.class, Localization.getString("game.choose_difficulty", 1)).get(0);
-                if (diff1 == 1 || diff1 == 2 || diff1 == 3) {
+                if (diff1 >= 1 && diff1 <= 5) {
                     break;
                 }   
             }   
             int diff2;
             while (true) {
                 diff2 = PrintUtils.inputAs(Integer.class, Localization.getString("game.choose_difficulty", 2)).get(0);
-                if (diff2 == 1 || diff2 == 2 || diff2 == 3) {
+                if (diff2 >= 1 && diff2 <= 5) {
                     break;
                 }
             }
@@ -157,16 +172,10 @@ public final class Game {
             int[] move;
             // Get player input
             if (isBot(currentPlayer)) {
-                if (currentPlayer == 1) {
-                    move = gameAI1.getBotMove(false);
-                } else {
-                    move = gameAI2.getBotMove(false);
-                }
-                try {
-                    Thread.sleep(700);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+                GameAI ai = (currentPlayer == 1) ? gameAI1 : gameAI2;
+                long start = System.nanoTime();
+                move = ai.getBotMove(false);
+                pace(start, CONSOLE_MOVE_DELAY + ai.getMoveDelay());
             }
             else {
                 move = getPlayerMove();
@@ -177,6 +186,7 @@ public final class Game {
             // Process player move and calculate score
             int score = board.handleConsecutive(row, col, currentPlayer);
             playerScores[currentPlayer - 1] += score;
+            Tracer.log(TraceEvent.MOVE, currentPlayer, row, col, score);
 
             // Switch players
             currentPlayer = (currentPlayer == 1) ? 2 : 1;
@@ -184,9 +194,21 @@ public final class Game {
 
         // Display game result
         winner = maxScorePlayer();
+        Tracer.log(TraceEvent.GAME_OVER, winner, playerScores[0], playerScores[1]);
         displayGameResult();
     }
 
+    // Bot-only game loop for batch play: no rendering, sleeping, marks or localized output
+    public void headlessPlay() {
+        while (!board.isFull()) {
+            int[] move = (currentPlayer == 1) ? gameAI1.getBotMove(false) : gameAI2.getBotMove(false);
+            playerScores[currentPlayer - 1] += board.applyMove(move[0], move[1], currentPlayer);
+            currentPlayer = (currentPlayer == 1) ? 2 : 1;
+        }
+        gameOver = true;
+        winner = computeWinner();
+    }
+
     public int[] getPlayerMove() {
         while (true) {
             String input = PrintUtils.input(Localization.getString("game.input_coordinate", currentPlayer));
@@ -330,9 +352,14 @@ public final class Game {
     }
 
     private int maxScorePlayer() {
+        System.out.println(Localization.getString("game.win_playerScores") + Arrays.toString(playerScores));
+        return computeWinner();
+    }
+
+    // Player with the higher score, -1 for a draw
+    private int computeWinner() {
         int maxScore = 0;
         int maxScorePlayer = -1;
-        System.out.println(Localization.getString("game.win_playerScores") + Arrays.toString(playerScores));
         for (int i = 0; i < 2; i++) {
             if (playerScores[i] == maxScore) {
                 maxScorePlayer = -1;
@@ -360,11 +387,13 @@ public final class Game {
         // Process the move and calculate score
         int score = board.handleConsecutive(row, col, currentPlayer);
         playerScores[currentPlayer - 1] += score;
+        Tracer.log(TraceEvent.MOVE, currentPlayer, row, col, score);
         displayGameStatus();
         // Check if game is over
         if (isBoardFull()) {
             gameOver = true;
             winner = maxScorePlayer();
+            Tracer.log(TraceEvent.GAME_OVER, winner, playerScores[0], playerScores[1]);
         }
 
         // Switch players
@@ -429,25 +458,50 @@ public final class Game {
     }
 
     public void guiGetBotMove(int player) {
-        if (player == 1) {
-            new SwingWorker<Void, Void>() {
-                @Override
-                protected Void doInBackground() throws Exception {
-                    int[] move = gameAI1.getBotMove(true);
-                    gui.handleButtonClick(move[0], move[1]);
-                    return null;
-                }
-            }.execute();
-            
-        } else {
-            new SwingWorker<Void, Void>() {
-                @Override
-                protected Void doInBackground() throws Exception {
-                    int[] move = gameAI2.getBotMove(true);
+        GameAI ai = (player == 1) ? gameAI1 : gameAI2;
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                long start = System.nanoTime();
+                int[] move = ai.getBotMove(true);
+                pace(start, ai.getMoveDelay());
+                if (!abandoned) {
                     gui.handleButtonClick(move[0], move[1]);
-                    return null;
                 }
-            }.execute();
+                return null;
+            }
+        }.execute();
+    }
+
+    // Leave this game for a new one: the bots stop thinking and pondering at once, and no move of theirs is played
+    public void abandon() {
+        abandoned = true;
+        for (GameAI ai : new GameAI[]{gameAI1, gameAI2}) {
+            if (ai != null) {
+                ai.stopThinking();
+                ai.stopPondering();
+            }
+        }
+    }
+
+    // While a human player decides, let a bot opponent search on their time (GameAI.startPondering)
+    public void guiPonder(int player) {
+        int opponent = (player == 1) ? 2 : 1;
+        if (isBot(opponent)) {
+            (opponent == 1 ? gameAI1 : gameAI2).startPondering();
+        }
+    }
+
+    // Cosmetic delay of interactive play: wait until a bot move has taken delayMillis since start, so thinking time
+    // counts towards the delay instead of adding to it
+    private static void pace(long start, long delayMillis) {
+        long left = delayMillis - (System.nanoTime() - start) / 1_000_000;
+        if (left > 0) {
+            try {
+                Thread.sleep(left);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
     public GameAI getGameAI1() {
@@ -467,4 +521,34 @@ public final class Game {
     public int getPlayerScore(int player) {
         return playerScores[player - 1];
     }
-}
\ No newline at end of file
+
+    // Trace events of the game flow
+    private enum TraceEvent implements Tracer.Event {
+        // player, row, col, score
+        MOVE(Tracer.DEBUG) {
+            @Override
+            public void format(StringBuilder out, long[] args, int i) {
+                out.append("player ").append(args[i]).append(" move: ").append((char) ('A' + args[i + 2])).append(args[i + 1] + 1)
+                        .append(" score: ").append(args[i + 3]);
+            }
+        },
+        // winner (-1 for a draw), player 1 score, player 2 score
+        GAME_OVER(Tracer.DEBUG) {
+            @Override
+            public void format(StringBuilder out, long[] args, int i) {
+                out.append("game over, winner: ").append(args[i]).append(" scores: ").append(args[i + 1]).append(" - ").append(args[i + 2]);
+            }
+        };
+
+        private final int level;
+
+        TraceEvent(int level) {
+            this.level = level;
+        }
+
+        @Override
+        public int level() {
+            return level;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package game;
+
+// Lookup tables for scoring along lines.
+// Scoring only depends on which cells of a line are occupied, so every row, column and diagonal is a mask of
+// up to 9 bits (kept up to date by BitBoard), and the score of a cell's run is precomputed per
+// (line mask, index of the cell in the line).
+// Cells of a line are indexed in the order Board and GameAI walk them: left to right, top to bottom,
+// top-left to bottom-right, and bottom-left to top-right, so the start of a run is its lowest index.
+public final class LinePatterns {
+    public static final int LINES = 9 + 9 + 17 + 17; // rows, columns, main diagonals, anti-diagonals
+    public static final int MAX_LENGTH = 9;
+    public static final int MASKS = 1 << MAX_LENGTH;
+
+    // Per (direction, cell): the line through the cell and the cell's index in it
+    private static final byte[] LINE = new byte[4 * BitBoard.CELLS];
+    private static final byte[] INDEX = new byte[4 * BitBoard.CELLS];
+    // Per line: its cells in index order
+    private static final int[][] CELLS = new int[LINES][];
+
+    // Per (mask << 4 | index) of an occupied index: the score of the run through it under the game rule
+    private static final byte[] SCORE = new byte[MASKS << 4];
+    // Per (mask << 4 | index) of an empty index: what a stone placed there gains on this line
+    private static final byte[] GAIN = new byte[MASKS << 4];
+
+    static {
+        int line = 0;
+        for (int row = 0; row < 9; row++, line++) {
+            int[] cells = new int[9];
+            for (int col = 0; col < 9; col++) {
+                cells[col] = BitBoard.cellOf(row, col);
+            }
+            addLine(0, line, cells);
+        }
+        for (int col = 0; col < 9; col++, line++) {
+            int[] cells = new int[9];
+            for (int row = 0; row < 9; row++) {
+                cells[row] = BitBoard.cellOf(row, col);
+            }
+            addLine(1, line, cells);
+        }
+        // Main diagonals by row - col from -8 to 8, walked top-left to bottom-right
+        for (int diff = -8; diff <= 8; diff++, line++) {
+            int[] cells = new int[9 - Math.abs(diff)];
+            int row = Math.max(diff, 0);
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = BitBoard.cellOf(row + i, row + i - diff);
+            }
+            addLine(2, line, cells);
+        }
+        // Anti-diagonals by row + col from 0 to 16, walked bottom-left to top-right
+        for (int sum = 0; sum <= 16; sum++, line++) {
+            int[] cells = new int[9 - Math.abs(sum - 8)];
+            int row = Math.min(sum, 8);
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = BitBoard.cellOf(row - i, sum - row + i);
+            }
+            addLine(3, line, cells);
+        }
+
+        for (int mask = 0; mask < MASKS; mask++) {
+            for (int index = 0; index < MAX_LENGTH; index++) {
+                if ((mask & (1 << index)) == 0) {
+                    continue;
+                }
+                int start = index;
+                while (start > 0 && (mask & (1 << (start - 1))) != 0) {
+                    start--;
+                }
+                int end = index;
+                while (end < MAX_LENGTH - 1 && (mask & (1 << (end + 1))) != 0) {
+                    end++;
+                }
+                int length = end - start + 1;
+                SCORE[mask << 4 | index] = (byte) (length % 3 == 0 ? length : 0);
+                GAIN[(mask & ~(1 << index)) << 4 | index] = SCORE[mask << 4 | index];
+            }
+        }
+    }
+
+    private static void addLine(int direction, int line, int[] cells) {
+        CELLS[line] = cells;
+        for (int i = 0; i < cells.length; i++) {
+            LINE[direction * BitBoard.CELLS + cells[i]] = (byte) line;
+            INDEX[direction * BitBoard.CELLS + cells[i]] = (byte) i;
+        }
+    }
+
+    private LinePatterns() {
+    }
+
+    public static int lineOf(int direction, int cell) {
+        return LINE[direction * BitBoard.CELLS + cell];
+    }
+
+    public static int indexOf(int direction, int cell) {
+        return INDEX[direction * BitBoard.CELLS + cell];
+    }
+
+    public static int length(int line) {
+        return CELLS[line].length;
+    }
+
+    public static int cellAt(int line, int index) {
+        return CELLS[line][index];
+    }
+
+    // Points for the run through an occupied index: its length if that is a multiple of 3, else 0
+    public static int score(int mask, int index) {
+        return SCORE[mask << 4 | index];
+    }
+
+    // Points on this line for a stone placed on an empty index
+    public static int gain(int mask, int index) {
+        return GAIN[mask << 4 | index];
+    }
+}
@@ -0,0 +1,115 @@
+package game;
+
+// The 8 symmetries of the square board (rotations and reflections).
+// Scoring looks at lines through a stone in all four directions, and every symmetry maps those lines onto each other,
+// so symmetric positions have the same value and their best moves map onto each other.
+// The canonical form of a position is the image with the smallest Zobrist key; caches keyed on it merge the
+// up to 8 equivalent positions into one entry. The occupancy variants hash every stone as player 1, for caches that
+// also merge positions differing only in stone colours.
+public final class Symmetry {
+    public static final int COUNT = 8;
+    public static final int IDENTITY = 0;
+
+    // MAP[t][cell] is the image of cell under symmetry t
+    private static final int[][] MAP = new int[COUNT][BitBoard.CELLS];
+    private static final int[] INVERSE = { 0, 3, 2, 1, 4, 5, 6, 7 };
+
+    static {
+        int last = BitBoard.SIZE - 1;
+        for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+            int row = BitBoard.rowOf(cell);
+            int col = BitBoard.colOf(cell);
+            MAP[0][cell] = BitBoard.cellOf(row, col); // identity
+            MAP[1][cell] = BitBoard.cellOf(col, last - row); // rotate 90 clockwise
+            MAP[2][cell] = BitBoard.cellOf(last - row, last - col); // rotate 180
+            MAP[3][cell] = BitBoard.cellOf(last - col, row); // rotate 270 clockwise
+            MAP[4][cell] = BitBoard.cellOf(row, last - col); // mirror left-right
+            MAP[5][cell] = BitBoard.cellOf(last - row, col); // mirror top-bottom
+            MAP[6][cell] = BitBoard.cellOf(col, row); // mirror on the main diagonal
+            MAP[7][cell] = BitBoard.cellOf(last - col, last - row); // mirror on the anti-diagonal
+        }
+    }
+
+    private Symmetry() {
+    }
+
+    public static int apply(int symmetry, int cell) {
+        return MAP[symmetry][cell];
+    }
+
+    public static int inverse(int symmetry) {
+        return INVERSE[symmetry];
+    }
+
+    // Zobrist key of the position after applying the symmetry; key(board, IDENTITY) == board.getKey()
+    public static long key(BitBoard board, int symmetry) {
+        int[] map = MAP[symmetry];
+        long key = 0;
+        for (int cell = board.nextStone(0); cell >= 0; cell = board.nextStone(cell + 1)) {
+            key ^= BitBoard.zobrist(board.getCell(cell), map[cell]);
+        }
+        return key;
+    }
+
+    // Key of the occupied cells after applying the symmetry; occupancyKey(board, IDENTITY) == board.getOccupancyKey()
+    public static long occupancyKey(BitBoard board, int symmetry) {
+        int[] map = MAP[symmetry];
+        long key = 0;
+        for (int cell = board.nextStone(0); cell >= 0; cell = board.nextStone(cell + 1)) {
+            key ^= BitBoard.zobrist(1, map[cell]);
+        }
+        return key;
+    }
+
+    // The symmetry that maps the position to its canonical form, in one pass over the stones
+    public static int canonicalSymmetry(BitBoard board) {
+        return canonicalSymmetry(board, false);
+    }
+
+    // The symmetry with the smallest occupancy key
+    public static int canonicalOccupancySymmetry(BitBoard board) {
+        return canonicalSymmetry(board, true);
+    }
+
+    private static int canonicalSymmetry(BitBoard board, boolean occupancy) {
+        long k0 = 0, k1 = 0, k2 = 0, k3 = 0, k4 = 0, k5 = 0, k6 = 0, k7 = 0;
+        for (int cell = board.nextStone(0); cell >= 0; cell = board.nextStone(cell + 1)) {
+            int player = occupancy ? 1 : board.getCell(cell);
+            k0 ^= BitBoard.zobrist(player, MAP[0][cell]);
+            k1 ^= BitBoard.zobrist(player, MAP[1][cell]);
+            k2 ^= BitBoard.zobrist(player, MAP[2][cell]);
+            k3 ^= BitBoard.zobrist(player, MAP[3][cell]);
+            k4 ^= BitBoard.zobrist(player, MAP[4][cell]);
+            k5 ^= BitBoard.zobrist(player, MAP[5][cell]);
+            k6 ^= BitBoard.zobrist(player, MAP[6][cell]);
+            k7 ^= BitBoard.zobrist(player, MAP[7][cell]);
+        }
+        int best = 0;
+        long min = k0;
+        if (k1 < min) { min = k1; best = 1; }
+        if (k2 < min) { min = k2; best = 2; }
+        if (k3 < min) { min = k3; best = 3; }
+        if (k4 < min) { min = k4; best = 4; }
+        if (k5 < min) { min = k5; best = 5; }
+        if (k6 < min) { min = k6; best = 6; }
+        if (k7 < min) { best = 7; }
+        return best;
+    }
+
+    public static long canonicalKey(BitBoard board) {
+        return key(board, canonicalSymmetry(board));
+    }
+
+    public static long canonicalOccupancyKey(BitBoard board) {
+        return occupancyKey(board, canonicalOccupancySymmetry(board));
+    }
+
+    // Write the image of a position under the symmetry into target
+    public static void transform(BitBoard board, int symmetry, BitBoard target) {
+        target.clear();
+        int[] map = MAP[symmetry];
+        for (int cell = board.nextStone(0); cell >= 0; cell = board.nextStone(cell + 1)) {
+            target.place(map[cell], board.getCell(cell));
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package game.ai;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import game.BitBoard;
+import game.Symmetry;
+
+// Negamax alpha-beta search over the score difference with iterative deepening.
+// A value is seen from the side to move: the points it still gains minus the points the opponent still gains.
+// The table is keyed on occupancy alone (see BitBoard.getOccupancyKey).
+// Early in the game symmetric positions are common, so there the table is keyed on the canonical form of the position
+// and its moves are stored in the canonical frame.
+//
+// With more than one thread the search is Lazy SMP: helper searches on a ForkJoinPool run the same iterative deepening
+// on the same root, every other one a ply ahead and each with its own tie-break in move ordering, and share their
+// results through the lock-free transposition table. The main search decides the move unless a helper completed a
+// deeper iteration by the time it stops.
+public final class AlphaBetaSearch {
+    private static final int INFINITY = 10000;
+    private static final int TT_MOVE_BONUS = 1000; // Ordering key added to the transposition table move
+    private static final int TIE_BITS = 8; // Low bits of an ordering key used by helpers to break ties
+    private static final int SYMMETRY_MAX_STONES = 12; // Positions with at most this many stones use canonical keys
+
+    private final TranspositionTable table;
+    private final int helper; // 0 for a main search, 1.. for its helpers; varies the move ordering
+    private final BitBoard board = new BitBoard();
+    // Move lists per ply, filled by generateMoves and searched in order
+    private final int[][] moves = new int[BitBoard.CELLS + 1][BitBoard.CELLS];
+    private final int[][] gains = new int[BitBoard.CELLS + 1][BitBoard.CELLS];
+
+    private long deadline;
+    private boolean aborted;
+    private volatile boolean stopped; // Set by the main search to stop its helpers
+    private int rootBestMove;
+
+    private int threads = 1;
+    private ForkJoinPool pool;
+    private AlphaBetaSearch[] helpers = new AlphaBetaSearch[0];
+
+    // Results of the last search
+    private int bestMove = TranspositionTable.NO_MOVE;
+    private int bestValue;
+    private int completedDepth;
+    private long nodes;
+    private long elapsedNanos;
+
+    public AlphaBetaSearch(TranspositionTable table) {
+        this(table, 0);
+    }
+
+    private AlphaBetaSearch(TranspositionTable table, int helper) {
+        this.table = table;
+        this.helper = helper;
+    }
+
+    // Search with this many threads in total, the helpers running on the pool (best with at least threads - 1 workers)
+    public void setThreads(int threads, ForkJoinPool pool) {
+        this.threads = Math.max(threads, 1);
+        this.pool = pool;
+        if (helpers.length != this.threads - 1) {
+            helpers = new AlphaBetaSearch[this.threads - 1];
+            for (int i = 0; i < helpers.length; i++) {
+                helpers[i] = new AlphaBetaSearch(table, i + 1);
+            }
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // Search the position for the given player to move and return the best cell (row * 9 + col) found
+    // before the time budget runs out (0 for no time limit), maxDepth is completed (0 for no depth limit) or the
+    // calling thread is interrupted. The last fully searched depth decides the move; depth 1 always completes.
+    public int search(BitBoard position, int player, long budgetMillis, int maxDepth) {
+        long start = System.nanoTime();
+        deadline = budgetMillis > 0 ? start + budgetMillis * 1_000_000L : Long.MAX_VALUE;
+        board.copyFrom(position);
+        table.newSearch();
+        if (maxDepth <= 0 || maxDepth > board.emptyCount()) {
+            maxDepth = board.emptyCount();
+        }
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[helpers.length];
+        for (int i = 0; i < helpers.length; i++) {
+            AlphaBetaSearch helper = helpers[i];
+            helper.board.copyFrom(position);
+            helper.deadline = deadline;
+            helper.stopped = false;
+            int depths = maxDepth;
+            tasks[i] = pool.submit(() -> helper.deepen(1 + helper.helper % 2, depths, player));
+        }
+        deepen(1, maxDepth, player);
+        long totalNodes = nodes;
+        for (int i = 0; i < helpers.length; i++) {
+            AlphaBetaSearch helper = helpers[i];
+            helper.stopped = true;
+            tasks[i].join();
+            totalNodes += helper.nodes;
+            if (helper.completedDepth > completedDepth) {
+                completedDepth = helper.completedDepth;
+                bestValue = helper.bestValue;
+                bestMove = helper.bestMove;
+            }
+        }
+        nodes = totalNodes;
+        elapsedNanos = System.nanoTime() - start;
+        return bestMove;
+    }
+
+    // Iterative deepening from firstDepth to maxDepth on the board
+    private void deepen(int firstDepth, int maxDepth, int player) {
+        nodes = 0;
+        aborted = false;
+        completedDepth = 0;
+        bestValue = 0;
+        bestMove = board.nextEmpty(0);
+        for (int depth = firstDepth; depth <= maxDepth && !stopped; depth++) {
+            int value = negamax(depth, 0, -INFINITY, INFINITY, player);
+            if (aborted) {
+                break;
+            }
+            completedDepth = depth;
+            bestValue = value;
+            bestMove = rootBestMove;
+            if (System.nanoTime() >= deadline || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+        }
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, int player) {
+        nodes++;
+        if ((nodes & 1023) == 0 && (System.nanoTime() >= deadline || stopped || Thread.currentThread().isInterrupted())) {
+            aborted = true;
+        }
+        if (aborted || depth == 0 || board.emptyCount() == 0) {
+            return 0;
+        }
+
+        int symmetry = Symmetry.IDENTITY;
+        long key = board.getOccupancyKey();
+        if (board.stoneCount() <= SYMMETRY_MAX_STONES) {
+            symmetry = Symmetry.canonicalOccupancySymmetry(board);
+            key = Symmetry.occupancyKey(board, symmetry);
+        }
+        long entry = table.probe(key);
+        int ttMove = TranspositionTable.NO_MOVE;
+        if (entry != 0) {
+            ttMove = TranspositionTable.bestMove(entry);
+            if (ttMove != TranspositionTable.NO_MOVE) {
+                ttMove = Symmetry.apply(Symmetry.inverse(symmetry), ttMove);
+            }
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int value = TranspositionTable.eval(entry);
+                switch (TranspositionTable.bound(entry)) {
+                    case TranspositionTable.EXACT -> {
+                        return value;
+                    }
+                    case TranspositionTable.LOWER -> {
+                        if (value >= beta) {
+                            return value;
+                        }
+                    }
+                    default -> {
+                        if (value <= alpha) {
+                            return value;
+                        }
+                    }
+                }
+            }
+        }
+
+        int alphaOrig = alpha;
+        int count = generateMoves(ply, player, ttMove);
+        int[] plyMoves = moves[ply];
+        int[] plyGains = gains[ply];
+        int best = -INFINITY;
+        int bestCell = plyMoves[0];
+        for (int i = 0; i < count; i++) {
+            int cell = plyMoves[i];
+            int gain = plyGains[i];
+            board.place(cell, player);
+            // value = gain - child, so the child's window is (gain - beta, gain - alpha)
+            int value = gain - negamax(depth - 1, ply + 1, gain - beta, gain - alpha, 3 - player);
+            board.remove(cell);
+            if (aborted) {
+                return 0;
+            }
+            if (value > best) {
+                best = value;
+                bestCell = cell;
+                if (ply == 0) {
+                    rootBestMove = cell;
+                }
+            }
+            if (value > alpha) {
+                alpha = value;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(key, best, depth, bound, Symmetry.apply(symmetry, bestCell));
+        return best;
+    }
+
+    // Fill the move list of a ply with every empty cell and its immediate gain,
+    // ordered by the transposition table move first and then by gain
+    private int generateMoves(int ply, int player, int ttMove) {
+        int[] plyMoves = moves[ply];
+        int[] plyGains = gains[ply];
+        int count = 0;
+        for (int cell = board.nextEmpty(0); cell >= 0; cell = board.nextEmpty(cell + 1)) {
+            int gain = board.placeAndScore(cell, player);
+            board.remove(cell);
+            int order = orderOf(cell, gain, ttMove);
+            // Insertion sort, descending; most moves gain nothing so this stays close to linear
+            int i = count++;
+            while (i > 0 && orderOf(plyMoves[i - 1], plyGains[i - 1], ttMove) < order) {
+                plyMoves[i] = plyMoves[i - 1];
+                plyGains[i] = plyGains[i - 1];
+                i--;
+            }
+            plyMoves[i] = cell;
+            plyGains[i] = gain;
+        }
+        return count;
+    }
+
+    // Ordering key: gain, with the transposition table move first. A helper breaks ties between equal gains by its
+    // own hash of the cell (kept below one point), so the threads walk the tree in different orders
+    private int orderOf(int cell, int gain, int ttMove) {
+        int order = (gain + (cell == ttMove ? TT_MOVE_BONUS : 0)) << TIE_BITS;
+        return helper == 0 ? order : order + ((cell + 1) * helper * 0x9E3779B1 >>> (32 - TIE_BITS));
+    }
+
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    // Score difference the best move leads to at the completed depth, from the searching side's point of view
+    public int getBestValue() {
+        return bestValue;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+}
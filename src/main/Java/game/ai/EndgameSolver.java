@@ -0,0 +1,146 @@
+package game.ai;
+
+import java.util.Arrays;
+
+import game.BitBoard;
+
+// Exact solver for the last few empty cells.
+// The rest of the game only depends on which cells are still empty (see BitBoard.getOccupancyKey):
+// the value of a position is max over the empty cells of (points gained - value after the move).
+// Values are memoized per subset of the empty cells at the root, 2^n entries for n empty cells.
+// Later positions of the same game only fill some of those cells, so the memo is kept and reused for them.
+public final class EndgameSolver {
+    public static final int MAX_EMPTIES = 20;
+    private static final short UNKNOWN = Short.MIN_VALUE;
+    private static final int TIME_CHECK_INTERVAL = 4096;
+
+    private final BitBoard board = new BitBoard();
+    private final BitBoard root = new BitBoard(); // Position the memo was built for
+    private final int[] cells = new int[MAX_EMPTIES]; // Empty cells at the root; bit i of a subset stands for cells[i]
+    private int cellCount = -1; // Number of root cells, -1 while the memo is unused
+    private short[] memo = new short[0];
+    private long deadline;
+    private boolean aborted;
+
+    // Results of the last solve
+    private int bestMove = TranspositionTable.NO_MOVE;
+    private int bestValue;
+    private long nodes;
+    private long elapsedNanos;
+
+    // Solve the position to the end of the game and return an optimal cell (row * 9 + col), or NO_MOVE if the
+    // position has more than maxEmpties empty cells or the solve did not finish within the budget (0 for no limit)
+    // or before the calling thread was interrupted
+    public int solve(BitBoard position, int maxEmpties, long budgetMillis) {
+        long start = System.nanoTime();
+        bestMove = TranspositionTable.NO_MOVE;
+        nodes = 0;
+        int count = position.emptyCount();
+        if (count == 0 || count > Math.min(maxEmpties, MAX_EMPTIES)) {
+            elapsedNanos = System.nanoTime() - start;
+            return bestMove;
+        }
+        board.copyFrom(position);
+        if (!continuesRoot(position)) {
+            root.copyFrom(position);
+            cellCount = 0;
+            for (int cell = board.nextEmpty(0); cell >= 0; cell = board.nextEmpty(cell + 1)) {
+                cells[cellCount++] = cell;
+            }
+            if (memo.length < 1 << cellCount) {
+                memo = new short[1 << cellCount];
+            }
+            Arrays.fill(memo, 0, 1 << cellCount, UNKNOWN);
+            memo[0] = 0;
+        }
+        deadline = budgetMillis > 0 ? start + budgetMillis * 1_000_000L : Long.MAX_VALUE;
+        aborted = false;
+
+        int all = 0;
+        for (int i = 0; i < cellCount; i++) {
+            if (!board.isOccupied(cells[i])) {
+                all |= 1 << i;
+            }
+        }
+        int best = Integer.MIN_VALUE;
+        for (int rest = all; rest != 0; rest &= rest - 1) {
+            int i = Integer.numberOfTrailingZeros(rest);
+            int gain = board.placeAndScore(cells[i], 1);
+            int value = gain - value(all & ~(1 << i));
+            board.remove(cells[i]);
+            if (aborted) {
+                break;
+            }
+            if (value > best) {
+                best = value;
+                bestMove = cells[i];
+            }
+        }
+        if (aborted) {
+            bestMove = TranspositionTable.NO_MOVE;
+        } else {
+            bestValue = best;
+            memo[all] = (short) best;
+        }
+        elapsedNanos = System.nanoTime() - start;
+        return bestMove;
+    }
+
+    // Whether the position only adds stones to the memo's root, so its empty cells are a subset of the root cells
+    private boolean continuesRoot(BitBoard position) {
+        if (cellCount < 0) {
+            return false;
+        }
+        for (int cell = position.nextEmpty(0); cell >= 0; cell = position.nextEmpty(cell + 1)) {
+            if (root.isOccupied(cell)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Exact value for the side to move when the cells in the subset are the empty ones; the board matches the subset
+    private int value(int empties) {
+        short known = memo[empties];
+        if (known != UNKNOWN) {
+            return known;
+        }
+        if (++nodes % TIME_CHECK_INTERVAL == 0 && (System.nanoTime() >= deadline || Thread.currentThread().isInterrupted())) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        int best = Integer.MIN_VALUE;
+        for (int rest = empties; rest != 0; rest &= rest - 1) {
+            int i = Integer.numberOfTrailingZeros(rest);
+            int gain = board.placeAndScore(cells[i], 1);
+            int value = gain - value(empties & ~(1 << i));
+            board.remove(cells[i]);
+            if (value > best) {
+                best = value;
+            }
+        }
+        if (!aborted) {
+            memo[empties] = (short) best;
+        }
+        return best;
+    }
+
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    // Final score difference the best move leads to, from the moving side's point of view
+    public int getBestValue() {
+        return bestValue;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
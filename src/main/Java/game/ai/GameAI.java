@@ -1,13 +1,68 @@
 package game.ai;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import game.BitBoard;
+import game.Board;
 import game.Game;
+import game.GainKernel;
+import game.LinePatterns;
+import myutil.Tracer;
 public class GameAI {
     private Game game;
     private final int id;
     public final int difficulty;
+    private final Board searchBoard = new Board(BitBoard.SIZE); // Scratch board the AI plays moves on and takes back
+    private final int[] bestMoves = new int[BitBoard.CELLS]; // Cells tied for the best evaluation in hardMode
+    // hardMode candidates in row-major order with their evaluation; filled sequentially or by CandidateTask
+    private final int[] candidates = new int[BitBoard.CELLS];
+    private final boolean[] candidateCached = new boolean[BitBoard.CELLS];
+    private final int[] candidateScores = new int[BitBoard.CELLS];
+    private final int[] candidateOpponentScores = new int[BitBoard.CELLS];
+    private final int[] candidateReplies = new int[BitBoard.CELLS];
+    // Points a stone on each empty cell would earn, kept across turns for the position in gainsBoard;
+    // only the cells on lines touched by the moves played since are rescored
+    private final int[] cellGains = new int[BitBoard.CELLS];
+    private final BitBoard gainsBoard = new BitBoard();
+    private boolean gainsValid;
+    private GainKernel gainKernel = GainKernel.create(); // Scalar or vector backend filling cellGains
+    private int candidateCount;
+    private final long[] relevantCells = new long[2]; // Empty cells near a stone (BitBoard.relevantCells), lo/hi masks
+    private final double[] cellTotals = new double[BitBoard.CELLS]; // hardMode evaluation per candidate cell
+    private final int[] rankedCells = new int[BitBoard.CELLS]; // Cells with a positive gain, best first (BitBoard.rankGains)
+    private int rankedCount;
+    private boolean parallelHardMode; // Evaluate hardMode candidates on the search pool
+    private Random random = new Random();
+    private boolean pacing = true; // Whether interactive play shows the easy AI pausing as if it were thinking
+    private static final long EASY_MOVE_DELAY = 1000; // Cosmetic pause of the easy AI in interactive play, in milliseconds
+    public static final int DEFAULT_TABLE_ENTRIES = 1 << 18;
+    private TranspositionTable transpositionTable; // Created on first use, can be shared between AIs
+    public static final long DEFAULT_TIME_BUDGET = 1000; // Thinking time per move of the searching difficulties, in milliseconds
+    private TimeManager timeManager = TimeManager.perMove(DEFAULT_TIME_BUDGET);
+    private long moveBudgetMillis; // Thinking time of the move being chosen, from timeManager
+    private long moveDeadline; // System.nanoTime() by which the move being chosen is due, unused without a budget
+    private int lastEmptyCount = -1; // Empty cells at the last move; more now means a new game
+    private Thread thinkingThread; // Thread in getBotMove, guarded by this
+    private boolean stopRequested; // stopThinking interrupted thinkingThread, guarded by this
+    private AlphaBetaSearch alphaBetaSearch;
+    private int searchDepthLimit; // Deepest iteration of difficulty 4, 0 for no limit
+    private int searchThreads = 1; // Threads of the difficulty 4 search, Lazy SMP on the search pool when more than 1
+    private long playoutLimit; // Playouts per move for difficulty 5, 0 to use only the time budget
+    private ForkJoinPool searchPool = ForkJoinPool.commonPool();
+    private MonteCarloSearch monteCarloSearch;
+    public static final int DEFAULT_ENDGAME_THRESHOLD = 16;
+    private int endgameThreshold = DEFAULT_ENDGAME_THRESHOLD; // Difficulty 3 and up play exactly from this many empty cells on
+    private EndgameSolver endgameSolver;
+    private OpeningBook openingBook = OpeningBook.getDefault(); // Consulted first by difficulty 3 and up, null for none
+    // Pondering: searching on the opponent's time (startPondering)
+    private volatile Thread ponderThread;
+    private final BitBoard ponderPosition = new BitBoard(); // Position after the predicted reply
+    private volatile boolean ponderPredicted; // ponderPosition is set and being searched since ponderStart
+    private volatile long ponderStart;
+    private int ponderMove = TranspositionTable.NO_MOVE; // Result of searching ponderPosition, read after joining
+    private static final int PONDER_PREDICT_SHARE = 4; // Predicting the opponent's reply takes this fraction of a move budget
+    private static final int PONDER_MOVE_BUDGETS = 10; // Pondering stops after this many move budgets
 
     public GameAI(Game game, int difficulty, int id) {
         this.game = game;
@@ -15,225 +70,805 @@ public class GameAI {
         this.id = id;
     }   
 
-    @SuppressWarnings("CallToPrintStackTrace")
+    // Choose a move for the current position within the time manager's budget.
+    // Thinking stops early when the calling thread is interrupted or stopThinking is called, and the best move found
+    // so far is returned. Only thinking time is spent here: cosmetic delays are up to the caller (see getMoveDelay).
     public int[] getBotMove(boolean isGUI) {
-        List<int[]> empty = game.getEmpty();
+        Board board = game.getBoard();
+        int empties = board.getEmptyCount();
+        if (empties > lastEmptyCount) {
+            timeManager.startGame();
+        }
+        lastEmptyCount = empties;
+        moveBudgetMillis = timeManager.budgetFor(empties);
+        long start = System.nanoTime();
+        moveDeadline = start + moveBudgetMillis * 1_000_000L;
+        synchronized (this) {
+            thinkingThread = Thread.currentThread();
+        }
+        try {
+            return chooseMove(board, finishPondering(board.getBitBoard()), isGUI);
+        } finally {
+            synchronized (this) {
+                thinkingThread = null;
+                if (stopRequested) {
+                    // The interrupt was ours, not the caller's
+                    stopRequested = false;
+                    Thread.interrupted();
+                }
+            }
+            timeManager.moveDone(System.nanoTime() - start);
+        }
+    }
+
+    // Cut the current getBotMove short so it returns the best move found so far; no effect when not thinking
+    public synchronized void stopThinking() {
+        if (thinkingThread != null && !stopRequested) {
+            stopRequested = true;
+            thinkingThread.interrupt();
+        }
+    }
+
+    // ponderedMove: the move pondering found for this position, NO_MOVE if it did not predict it
+    private int[] chooseMove(Board board, int ponderedMove, boolean isGUI) {
         int[] position = new int[3]; //[0] = row, [1] = col, [2] = moveType(1 = random, 2 = best)
+        if (difficulty >= 3 && openingBook != null) {
+            int bookMove = openingBook.lookup(board.getBitBoard());
+            if (bookMove != TranspositionTable.NO_MOVE) {
+                position = new int[]{BitBoard.rowOf(bookMove), BitBoard.colOf(bookMove), 2};
+                if (isGUI) {
+                    Tracer.log(TraceEvent.BOOK, bookMove);
+                    Tracer.log(TraceEvent.MOVE, difficulty, position[0], position[1], position[2]);
+                }
+                return position;
+            }
+        }
+        if (ponderedMove != TranspositionTable.NO_MOVE) {
+            position = new int[]{BitBoard.rowOf(ponderedMove), BitBoard.colOf(ponderedMove), 2};
+            if (isGUI) {
+                Tracer.log(TraceEvent.PONDER_HIT, ponderedMove, (System.nanoTime() - ponderStart) / 1_000_000);
+                Tracer.log(TraceEvent.MOVE, difficulty, position[0], position[1], position[2]);
+            }
+            return position;
+        }
+        if (difficulty >= 3 && board.getEmptyCount() <= endgameThreshold) {
+            position = endgameMode(board, isGUI);
+            if (position != null) {
+                if (isGUI) {
+                    Tracer.log(TraceEvent.MOVE, difficulty, position[0], position[1], position[2]);
+                }
+                return position;
+            }
+            position = new int[3];
+        }
         switch (difficulty) {
-            case 1 -> position = easyMode(empty);
-            case 2 -> position = mediumMode(empty, isGUI);
-            case 3 -> position = hardMode(empty, isGUI);
+            case 1 -> position = easyMode(board);
+            case 2 -> position = mediumMode(board, isGUI);
+            case 3 -> position = hardMode(board, isGUI);
+            case 4 -> position = searchMode(board, isGUI);
+            case 5 -> position = monteCarloMode(board, isGUI);
             default -> {
             }
         }
         if (isGUI) {
-            System.out.println("AI difficulty: " + difficulty);
-            System.out.println("AI move: " + position[0] + ", " + position[1] + ", mode:" + (position[2] == 1 ? "random" : "bestMove") + "\n");
+            Tracer.log(TraceEvent.MOVE, difficulty, position[0], position[1], position[2]);
         }
         return position;
     }
 
     
     @SuppressWarnings("UseSpecificCatch")
-    private int[] easyMode(List<int[]> empty) {
+    private int[] easyMode(Board board) {
         try {
-            Thread.sleep(1000);
-            int[] position = empty.get(new Random().nextInt(empty.size()));
-            return new int[]{position[0], position[1], 1};
+            int cell = board.nthEmpty(random.nextInt(board.getEmptyCount()));
+            return new int[]{BitBoard.rowOf(cell), BitBoard.colOf(cell), 1};
         } catch (Exception e) {
             System.out.println("Error in easyMode: " + e.getMessage());
             return null;
         }
     }
-    private int[] mediumMode(List<int[]> empty, boolean isGUI) {
+    private int[] mediumMode(Board board, boolean isGUI) {
         // 1. Find the position with the highest score
-        int[] bestMove = null;
+        int bestMove = -1;
         int maxScore = 0;
-        
-        for (int[] cell : empty) {
-            int[][] tempBoard = copyBoard(game.getBoardState());
-            int score = calculatePotentialScore(cell[0], cell[1], 2, tempBoard)[0][0]; //This player value represents AI
+        updateCellGains(board.getBitBoard());
+        // Only cells near a stone can score
+        board.getBitBoard().relevantCells(relevantCells);
+        for (int cell = nextCell(relevantCells, 0); cell >= 0; cell = nextCell(relevantCells, cell + 1)) {
+            int score = cellGains[cell];
             if (score > maxScore) {
                 maxScore = score;
                 bestMove = cell;
                 if (isGUI) {
-                    System.out.println("maxScore: " + maxScore);
+                    Tracer.log(TraceEvent.MEDIUM_MAX, maxScore);
                 }
             }
         }
         
         // 2. If no scoring opportunity, choose randomly
-        if (bestMove != null) {
-            return new int[]{bestMove[0], bestMove[1], 2};
+        if (bestMove >= 0) {
+            return new int[]{BitBoard.rowOf(bestMove), BitBoard.colOf(bestMove), 2};
         } else {
-            int[] randomMove = empty.get(new Random().nextInt(empty.size()));
-            return new int[]{randomMove[0], randomMove[1], 1};
+            int randomMove = board.nthEmpty(random.nextInt(board.getEmptyCount()));
+            return new int[]{BitBoard.rowOf(randomMove), BitBoard.colOf(randomMove), 1};
         }
     }
 
-    private int[] hardMode(List<int[]> empty, boolean isGUI) {
+    private int[] hardMode(Board board, boolean isGUI) {
         // Find the position with the highest score
-        List<int[]> bestMoves = new ArrayList<>();
+        int bestMoveCount = 0;
+        int emptyCount = board.getEmptyCount();
         int currentScoreDiff = game.getScoreDiff(id);
         int myScore = game.getPlayerScore(id);
         double maxScore = -99;
-        for (int[] cell : empty) {
-            int[][] tempBoard = copyBoard(game.getBoardState());
-            int[][] result = calculatePotentialScore(cell[0], cell[1], 2, tempBoard); //This player value represents AI
-            /* ai thinking */
-            int score = result[0][0];
-            //ai thinking show
-            int horizontal = result[1][0];
-            int vertical = result[2][0];
-            int mainDiagonal = result[3][0];
-            int subDiagonal = result[4][0];
-            String horizontalStart = (char)(result[1][2]+65) + "" + (result[1][1]+1);
-            String verticalStart = (char)(result[2][2]+65) + "" + (result[2][1]+1);
-            String mainDiagonalStart = (char)(result[3][2]+65) + "" + (result[3][1]+1);
-            String subDiagonalStart = (char)(result[4][2]+65) + "" + (result[4][1]+1);
-            /* ai opponent thinking */
-            int opponentScore = 0;
-            //ai thinking show
-            int opponentHorizontal = 0;
-            int opponentVertical = 0;
-            int opponentMainDiagonal = 0;
-            int opponentSubDiagonal = 0;
-            String opponentHorizontalStart = "";
-            String opponentVerticalStart = "";
-            String opponentMainDiagonalStart = "";
-            String opponentSubDiagonalStart = "";
-            // Consider opponent's potential scoring opportunities
-            for (int[] cell2 : empty) {
-                if (cell2[0] == cell[0] && cell2[1] == cell[1]) {
-                    continue;
-                }
-                int[][] opponentTempBoard = copyBoard(tempBoard);
-                int[][] tempResult = calculatePotentialScore(cell2[0], cell2[1], 1, opponentTempBoard); //This player value represents opponent
-                int tempScore = tempResult[0][0];
-                int tempHorizontal = tempResult[1][0];
-                int tempVertical = tempResult[2][0];
-                int tempMainDiagonal = tempResult[3][0];
-                int tempSubDiagonal = tempResult[4][0];
-                String tempHorizontalStart = (char)(tempResult[1][2]+65) + "" + (tempResult[1][1]+1);
-                String tempVerticalStart = (char)(tempResult[2][2]+65) + "" + (tempResult[2][1]+1);
-                String tempMainDiagonalStart = (char)(tempResult[3][2]+65) + "" + (tempResult[3][1]+1);
-                String tempSubDiagonalStart = (char)(tempResult[4][2]+65) + "" + (tempResult[4][1]+1);
-                if (tempScore > opponentScore) {
-                    opponentScore = tempScore;
-                    opponentHorizontal = tempHorizontal;
-                    opponentVertical = tempVertical;
-                    opponentMainDiagonal = tempMainDiagonal;
-                    opponentSubDiagonal = tempSubDiagonal;
-                    opponentHorizontalStart = tempHorizontalStart;
-                    opponentVerticalStart = tempVerticalStart;
-                    opponentMainDiagonalStart = tempMainDiagonalStart;
-                    opponentSubDiagonalStart = tempSubDiagonalStart;
-                }
-            }
-            // Weighted evaluation
-            double weights = .5;
-            if (currentScoreDiff > 0) {
-                weights /= Math.min(1.2 + (0.15 * currentScoreDiff)/myScore, 0.1);  // When leading, reduce weight, strengthen offense
-            } else if (currentScoreDiff < 0) {
-                weights *= Math.min(1.2 - (0.15 * currentScoreDiff)/myScore, 0.1);  // When trailing, increase weight, strengthen defense
+        // Weighted evaluation
+        double weights = .5;
+        if (currentScoreDiff > 0) {
+            weights /= Math.min(1.2 + (0.15 * currentScoreDiff)/myScore, 0.1);  // When leading, reduce weight, strengthen offense
+        } else if (currentScoreDiff < 0) {
+            weights *= Math.min(1.2 - (0.15 * currentScoreDiff)/myScore, 0.1);  // When trailing, increase weight, strengthen defense
+        }
+        if (emptyCount > 81/2) {
+            weights /= 0.7;
+        } else {
+            weights *= 0.7;
+        }
+
+        // Collect the candidates and look up the opponent replies stored for the positions they lead to
+        TranspositionTable table = getTranspositionTable();
+        table.newSearch();
+        searchBoard.copyFrom(board);
+        updateCellGains(searchBoard.getBitBoard());
+        long baseKey = searchBoard.getOccupancyKey(); // Replies only depend on occupancy, whoever played the stones
+        rankedCount = BitBoard.rankGains(cellGains, rankedCells);
+        // The candidates are the cells near a stone plus one quiet cell standing for all the others,
+        // which are worth exactly the same (see BitBoard.relevantCells)
+        BitBoard bits = searchBoard.getBitBoard();
+        bits.relevantCells(relevantCells);
+        long quietLo = ~bits.occupiedLo() & ~relevantCells[0];
+        long quietHi = ~bits.occupiedHi() & ~relevantCells[1] & ((1L << (BitBoard.CELLS - 64)) - 1);
+        int quietCell = quietLo != 0 ? Long.numberOfTrailingZeros(quietLo)
+                : quietHi != 0 ? 64 + Long.numberOfTrailingZeros(quietHi) : -1;
+        candidateCount = 0;
+        for (int cell = nextCell(relevantCells, 0); cell >= 0; cell = nextCell(relevantCells, cell + 1)) {
+            addCandidate(table, baseKey, cell);
+        }
+        if (quietCell >= 0) {
+            addCandidate(table, baseKey, quietCell);
+        }
+
+        // Evaluate every candidate, spread over the search pool if enabled
+        if (parallelHardMode && searchPool.getParallelism() > 1) {
+            searchPool.invoke(new CandidateTask(0, candidateCount));
+        } else {
+            for (int i = 0; i < candidateCount; i++) {
+                evaluateCandidate(i);
             }
-            if (empty.size() > 81/2) {
-                weights /= 0.7;
-            } else {
-                weights *= 0.7;
+        }
+
+        for (int i = 0; i < candidateCount; i++) {
+            int cell = candidates[i];
+            if (!candidateCached[i]) {
+                table.store(baseKey ^ BitBoard.zobrist(1, cell), candidateOpponentScores[i], 1, TranspositionTable.EXACT, candidateReplies[i]);
             }
+            int score = candidateScores[i];
+            int opponentScore = candidateOpponentScores[i];
             double totalScore = score - (opponentScore * weights);
-            if (isGUI) {
-                System.out.println("--------------------------------");
-                System.out.println("cell: " + (char)(cell[1]+65) + (cell[0]+1));
-                System.out.println("-----------");
-                System.out.println("H: " + horizontal + " " + horizontalStart + " V: " + vertical + " " + verticalStart + " MD: " + mainDiagonal + " " + mainDiagonalStart + " SD: " + subDiagonal + " " + subDiagonalStart);    
-                System.out.println("OH: " + opponentHorizontal + " " + opponentHorizontalStart + " OV: " + opponentVertical + " " + opponentVerticalStart + " OMD: " + opponentMainDiagonal + " " + opponentMainDiagonalStart + " OSD: " + opponentSubDiagonal + " " + opponentSubDiagonalStart);
-                System.out.println("-----------");
-                System.out.println("score: " + score + " opponentScore: " + opponentScore);
-                System.out.println("-----------");
-                System.out.println("totalScore: " + totalScore);
+            cellTotals[cell] = totalScore;
+            if (isGUI && Tracer.isEnabled(TraceEvent.CANDIDATE)) {
+                traceCandidate(cell, candidateReplies[i], score, opponentScore, totalScore);
             }
             if (totalScore > maxScore) {
                 maxScore = totalScore;
-                bestMoves.clear();
-                bestMoves.add(cell);
                 if (isGUI) {
-                    System.out.println("$$$$");
-                    System.out.println("maxScore: " + maxScore);
-                    System.out.println("$$$$");
+                    Tracer.log(TraceEvent.HARD_MAX, Tracer.bits(maxScore));
                 }
             }
-            else if (totalScore == maxScore) {
-                bestMoves.add(cell);
+        }
+        // Ties in row-major order, the quiet cells all sharing the quiet candidate's value
+        double quietTotal = quietCell >= 0 ? cellTotals[quietCell] : 0;
+        for (int cell = searchBoard.nextEmpty(0); cell >= 0; cell = searchBoard.nextEmpty(cell + 1)) {
+            double totalScore = isRelevant(cell) ? cellTotals[cell] : quietTotal;
+            if (totalScore == maxScore) {
+                bestMoves[bestMoveCount++] = cell;
             }
         }
-        int[] bestMove = bestMoves.get(new Random().nextInt(bestMoves.size()));
+        int bestMove = bestMoves[random.nextInt(bestMoveCount)];
         if (isGUI) {
-            System.out.println("bestMove: " + bestMove[0] + " " + bestMove[1]);
+            Tracer.log(TraceEvent.HARD_BEST, BitBoard.rowOf(bestMove), BitBoard.colOf(bestMove));
         }
-        return new int[]{bestMove[0], bestMove[1], 2};
+        return new int[]{BitBoard.rowOf(bestMove), BitBoard.colOf(bestMove), 2};
     }
 
-    private int[][] copyBoard(int[][] board) {
-        int[][] copy = new int[board.length][board[0].length];
-        for (int i = 0; i < board.length; i++) {
-            System.arraycopy(board[i], 0, copy[i], 0, board[i].length);
+    private void addCandidate(TranspositionTable table, long baseKey, int cell) {
+        long entry = table.probe(baseKey ^ BitBoard.zobrist(1, cell));
+        candidates[candidateCount] = cell;
+        candidateCached[candidateCount] = entry != 0;
+        if (entry != 0) {
+            candidateOpponentScores[candidateCount] = TranspositionTable.eval(entry);
+            candidateReplies[candidateCount] = TranspositionTable.bestMove(entry);
         }
-        return copy;
+        candidateCount++;
     }
-    
-    private int[][] calculatePotentialScore(int row, int col, int player, int[][] tempBoard) {
-        tempBoard[row][col] = player;
-        
-        int totalScore = 0;
-        // Check four directions
-        int[] horizontal = checkLineForScore(tempBoard, row, col, 0, 1); // Horizontal
-        totalScore += horizontal[0];
-        int[] vertical = checkLineForScore(tempBoard, row, col, 1, 0); // Vertical
-        totalScore += vertical[0];
-        int[] mainDiagonal = checkLineForScore(tempBoard, row, col, 1, 1); // Main diagonal
-        totalScore += mainDiagonal[0];
-        int[] subDiagonal = checkLineForScore(tempBoard, row, col, -1, 1); // Sub diagonal
-        totalScore += subDiagonal[0];
-        return new int[][]{{totalScore}, horizontal, vertical, mainDiagonal, subDiagonal};
-    }
-    private int[] checkLineForScore(int[][] board, int Row, int Col, int rowInc, int colInc) {
-        int maxScore = 0;
-        int currentLength = 0;
-        int startRow = Row;
-        int startCol = Col;
-        for (int i = 1; i <= 8; i++) {
-            int tempRow = Row + i * -rowInc;
-            int tempCol = Col + i * -colInc;
-            if (tempRow < 0 || tempRow > 8 || tempCol < 0 || tempCol > 8) break;
-            if (board[tempRow][tempCol] == 0) break;
-            startRow = tempRow;
-            startCol = tempCol;
-        }
-
-        for (int i = 0; i <= 9; i++) {
-            int r = startRow + i * rowInc;
-            int c = startCol + i * colInc;
-            
-            if (r < 0 || r >= 9 || c < 0 || c >= 9) {
-                if (currentLength % 3 == 0) {
-                    maxScore += currentLength;
+
+    // First cell of relevantCells at or after the given cell, -1 if there is none
+    private static int nextCell(long[] cells, int from) {
+        if (from < 64) {
+            long rest = cells[0] & (-1L << from);
+            if (rest != 0) {
+                return Long.numberOfTrailingZeros(rest);
+            }
+            from = 64;
+        }
+        long rest = from < BitBoard.CELLS ? cells[1] & (-1L << (from - 64)) : 0;
+        return rest != 0 ? 64 + Long.numberOfTrailingZeros(rest) : -1;
+    }
+
+    private boolean isRelevant(int cell) {
+        long bits = cell < 64 ? relevantCells[0] >>> cell : relevantCells[1] >>> (cell - 64);
+        return (bits & 1) != 0;
+    }
+
+    // Bring cellGains up to date for the position. Stones added since the last call (by either player) only change
+    // the four lines through them, so only the empty cells on those lines are rescored; if stones were taken away
+    // (a new game) or the cache is empty, every cell is scored again in one pass.
+    private void updateCellGains(BitBoard position) {
+        long oldLo = gainsBoard.occupiedLo();
+        long oldHi = gainsBoard.occupiedHi();
+        long addedLo = position.occupiedLo() & ~oldLo;
+        long addedHi = position.occupiedHi() & ~oldHi;
+        boolean removed = (oldLo & ~position.occupiedLo()) != 0 || (oldHi & ~position.occupiedHi()) != 0;
+        gainsBoard.copyFrom(position);
+        if (!gainsValid || removed) {
+            gainKernel.gains(position, cellGains);
+            gainsValid = true;
+            return;
+        }
+        long dirtyLines = 0; // LinePatterns.LINES fits in one long
+        for (int i = 0; i < 2; i++) {
+            for (long added = i == 0 ? addedLo : addedHi; added != 0; added &= added - 1) {
+                int cell = i * 64 + Long.numberOfTrailingZeros(added);
+                cellGains[cell] = 0;
+                for (int direction = 0; direction < 4; direction++) {
+                    dirtyLines |= 1L << LinePatterns.lineOf(direction, cell);
                 }
-                break;
             }
-            if (board[r][c] != 0) { // As long as it's not empty
-                currentLength++;
+        }
+        for (; dirtyLines != 0; dirtyLines &= dirtyLines - 1) {
+            int line = Long.numberOfTrailingZeros(dirtyLines);
+            int mask = position.lineMask(line);
+            for (int empty = ~mask & ((1 << LinePatterns.length(line)) - 1); empty != 0; empty &= empty - 1) {
+                int cell = LinePatterns.cellAt(line, Integer.numberOfTrailingZeros(empty));
+                cellGains[cell] = position.gainAt(cell);
+            }
+        }
+    }
+
+    // Score the i-th hardMode candidate for the AI and, unless it was cached, the opponent's best reply to it.
+    // Reads only cellGains and the search board, so candidates can be evaluated concurrently.
+    private void evaluateCandidate(int i) {
+        int cell = candidates[i];
+        candidateScores[i] = cellGains[cell];
+        if (!candidateCached[i]) {
+            // Consider opponent's potential scoring opportunities on the board with the AI's stone on the cell
+            int reply = searchBoard.getBitBoard().bestReply(cell, cellGains, rankedCells, rankedCount);
+            candidateOpponentScores[i] = reply >>> 8;
+            candidateReplies[i] = (reply & 0xFF) - 1;
+        }
+    }
+
+    // Evaluates a range of hardMode candidates, splitting it until each task has a few cells
+    private final class CandidateTask extends RecursiveAction {
+        private static final int LEAF_SIZE = 4;
+        private final int from;
+        private final int to;
+
+        CandidateTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    evaluateCandidate(i);
+                }
             } else {
-                if (currentLength % 3 == 0) {
-                    maxScore += currentLength;
+                int middle = (from + to) >>> 1;
+                invokeAll(new CandidateTask(from, middle), new CandidateTask(middle, to));
+            }
+        }
+    }
+
+    // ai thinking show; the line scores are recomputed here so the evaluation itself keeps only the totals
+    private void traceCandidate(int cell, int bestReply, int score, int opponentScore, double totalScore) {
+        long result = calculatePotentialScore(BitBoard.rowOf(cell), BitBoard.colOf(cell), 2, searchBoard);
+        long opponentResult = 0;
+        if (bestReply != TranspositionTable.NO_MOVE) {
+            opponentResult = calculatePotentialScore(BitBoard.rowOf(bestReply), BitBoard.colOf(bestReply), 1, searchBoard);
+            searchBoard.undoMove();
+        }
+        searchBoard.undoMove();
+        Tracer.log(TraceEvent.CANDIDATE, cell, bestReply, score, opponentScore, Tracer.bits(totalScore), result, opponentResult);
+    }
+
+    // Trace events of the AI; the text is built on the trace thread
+    private enum TraceEvent implements Tracer.Event {
+        // difficulty, row, col, move type
+        MOVE(Tracer.INFO) {
+            @Override
+            public void format(StringBuilder out, long[] args, int i) {
+                out.append("AI difficulty: ").append(args[i]).append('\n')
+                        .append("AI move: ").append(args[i + 1]).append(", ").append(args[i + 2])
+                        .append(", mode:").append(args[i + 3] == 1 ? "random" : "bestMove").append('\n');
+            }
+        },
+        // max score
+        MEDIUM_MAX(Tracer.DEBUG) {
+            @Override
+            public void format(StringBuilder out, long[] args, int i) {
+                out.append("maxScore: ").append(args[i]);
+            }
+        },
+        // cell, best reply, score, opponent score, total score bits, packed result, packed opponent result
+        CANDIDATE(Tracer.TRACE) {
+            @Override
+            public void format(StringBuilder out, long[] args, int i) {
+                boolean hasReply = args[i + 1] != TranspositionTable.NO_MOVE;
+                out.append("--------------------------------\n")
+                        .append("cell: ").append(cellName((int) args[i])).append('\n')
+                        .append("-----------\n")
+                        .append(linesText(args[i + 5], "", true)).append('\n')
+                        .append(linesText(args[i + 6], "O", hasReply)).append('\n')
+                        .append("-----------\n")
+                        .append("score: ").append(args[i + 2]).append(" opponentScore: ").append(args[i + 3]).append('\n')
+                        .append("-----------\n")
+                        .append("totalScore: ").append(Tracer.toDouble(args[i + 4]));
+            }
+        },
+        // max score bits
+        HARD_MAX(Tracer.DEBUG) {
+            @Override
+            public void format(StringBuilder out, long[] args, int i) {
+                out.append("$$$$\nmaxScore: ").append(Tracer.toDouble(args[i])).append("\n$$$$");
+            }
+        },
+        // row, col
+        HARD_BEST(Tracer.DEBUG) {
+            @Override
+            public void format(StringBuilder out, long[] args, int i) {
+                out.append("bestMove: ").append(args[i]).append(' ').append(args[i + 1]);
+            }
+        },
+        // depth, value, nodes, nodes per second
+        SEARCH(Tracer.INFO) {
+            @Override
+            public void format(StringBuilder out, long[] args, int i) {
+                out.append("search depth: ").append(args[i]).append(" value: ").append(args[i + 1])
+                        .append(" nodes: ").append(args[i + 2]).append(" nps: ").append(args[i + 3]);
+            }
+        },
+        // capacity, used, probes, hits, stores, overwrites
+        TABLE(Tracer.DEBUG) {
+            @Override
+            public void format(StringBuilder out, long[] args, int i) {
+                out.append(TranspositionTable.format(args[i], args[i + 1], args[i + 2], args[i + 3], args[i + 4], args[i + 5]));
+            }
+        },
+        // cell
+        BOOK(Tracer.INFO) {
+            @Override
+            public void format(StringBuilder out, long[] args, int i) {
+                out.append("book move: ").append(cellName((int) args[i]));
+            }
+        },
+        // empty cells, solved (1) or timed out (0), value, milliseconds
+        ENDGAME(Tracer.INFO) {
+            @Override
+            public void format(StringBuilder out, long[] args, int i) {
+                out.append("endgame: ").append(args[i]).append(" empty, ");
+                if (args[i + 1] == 0) {
+                    out.append("timed out after ").append(args[i + 3]).append(" ms");
+                } else {
+                    out.append("value: ").append(args[i + 2]).append(" in ").append(args[i + 3]).append(" ms");
                 }
-                currentLength = 0;
             }
+        },
+        // playouts, playouts per second, win rate bits, tree nodes
+        MONTE_CARLO(Tracer.INFO) {
+            @Override
+            public void format(StringBuilder out, long[] args, int i) {
+                out.append("playouts: ").append(args[i]).append(" playouts/s: ").append(args[i + 1])
+                        .append(" win rate: ").append(Tracer.toDouble(args[i + 2])).append(" nodes: ").append(args[i + 3]);
+            }
+        },
+        // cell, milliseconds pondered
+        PONDER_HIT(Tracer.INFO) {
+            @Override
+            public void format(StringBuilder out, long[] args, int i) {
+                out.append("ponder hit: ").append(cellName((int) args[i])).append(" after ").append(args[i + 1]).append(" ms");
+            }
+        };
+
+        private final int level;
+
+        TraceEvent(int level) {
+            this.level = level;
         }
-        
-        return new int[]{maxScore, startRow, startCol};
+
+        @Override
+        public int level() {
+            return level;
+        }
+    }
+
+    private static final String[] LINE_NAMES = { "H", "V", "MD", "SD" };
+
+    // "H: 3 A1 V: 0 B2 ..." for a packed potential score; starts are left out when there was no move
+    private static String linesText(long result, String prefix, boolean withStarts) {
+        StringBuilder text = new StringBuilder();
+        for (int direction = 0; direction < 4; direction++) {
+            if (direction > 0) {
+                text.append(' ');
+            }
+            text.append(prefix).append(LINE_NAMES[direction]).append(": ").append(potentialLineScore(result, direction)).append(' ');
+            if (withStarts) {
+                text.append(cellName(potentialLineStart(result, direction)));
+            }
+        }
+        return text.toString();
+    }
+
+    // Board coordinates as shown to the player, e.g. "C5"
+    private static String cellName(int cell) {
+        return (char) (BitBoard.colOf(cell) + 'A') + "" + (BitBoard.rowOf(cell) + 1);
+    }
+
+    // What is left of the move's budget, at least 1 ms, for the searches of one move to share; 0 for no limit.
+    // An endgame solve that runs out of time leaves the fallback search only the rest, not a whole budget
+    private long budgetLeft() {
+        if (moveBudgetMillis == 0) {
+            return 0;
+        }
+        return Math.max((moveDeadline - System.nanoTime()) / 1_000_000, 1);
+    }
+
+    // Alpha-beta search with iterative deepening over the score difference, limited by the time budget
+    private int[] searchMode(Board board, boolean isGUI) {
+        int bestMove = alphaBetaSearch().search(board.getBitBoard(), id, budgetLeft(), searchDepthLimit);
+        if (isGUI) {
+            Tracer.log(TraceEvent.SEARCH, alphaBetaSearch.getCompletedDepth(), alphaBetaSearch.getBestValue(),
+                    alphaBetaSearch.getNodes(), alphaBetaSearch.getNodesPerSecond());
+            TranspositionTable table = getTranspositionTable();
+            Tracer.log(TraceEvent.TABLE, table.capacity(), table.getUsed(), table.getProbes(), table.getHits(),
+                    table.getStores(), table.getOverwrites());
+        }
+        return new int[]{BitBoard.rowOf(bestMove), BitBoard.colOf(bestMove), 2};
+    }
+
+    // Exact play to the end of the game; null if the solver ran out of time or was stopped, so the difficulty's own search decides
+    private int[] endgameMode(Board board, boolean isGUI) {
+        int bestMove = endgameSolver().solve(board.getBitBoard(), endgameThreshold, budgetLeft());
+        if (isGUI) {
+            Tracer.log(TraceEvent.ENDGAME, board.getEmptyCount(), bestMove == TranspositionTable.NO_MOVE ? 0 : 1,
+                    endgameSolver.getBestValue(), endgameSolver.getElapsedNanos() / 1_000_000);
+        }
+        if (bestMove == TranspositionTable.NO_MOVE) {
+            return null;
+        }
+        return new int[]{BitBoard.rowOf(bestMove), BitBoard.colOf(bestMove), 2};
+    }
+
+    // Parallel Monte Carlo tree search, limited by the time budget and optionally by a playout count
+    private int[] monteCarloMode(Board board, boolean isGUI) {
+        int bestMove = monteCarloSearch().search(board.getBitBoard(), id, game.getScoreDiff(id),
+                playoutLimit > 0 ? 0 : budgetLeft(), playoutLimit);
+        if (isGUI) {
+            Tracer.log(TraceEvent.MONTE_CARLO, monteCarloSearch.getPlayouts(), monteCarloSearch.getPlayoutsPerSecond(),
+                    Tracer.bits(monteCarloSearch.getBestWinRate()), monteCarloSearch.getTreeNodes());
+        }
+        return new int[]{BitBoard.rowOf(bestMove), BitBoard.colOf(bestMove), 2};
+    }
+
+    private AlphaBetaSearch alphaBetaSearch() {
+        if (alphaBetaSearch == null) {
+            alphaBetaSearch = new AlphaBetaSearch(getTranspositionTable());
+            alphaBetaSearch.setThreads(searchThreads, searchPool);
+        }
+        return alphaBetaSearch;
+    }
+
+    private EndgameSolver endgameSolver() {
+        if (endgameSolver == null) {
+            endgameSolver = new EndgameSolver();
+        }
+        return endgameSolver;
+    }
+
+    private MonteCarloSearch monteCarloSearch() {
+        if (monteCarloSearch == null) {
+            monteCarloSearch = new MonteCarloSearch(searchPool);
+            monteCarloSearch.setSeed(random.nextLong());
+        }
+        return monteCarloSearch;
+    }
+
+    // Body of the pondering thread, with the opponent to move in position.
+    // Near the end the opponent's position is solved exactly, which memoizes every position after its reply.
+    // Before that, a short search of the difficulty predicts the reply within predictMillis, filling the transposition
+    // table for all replies on the way, and then searches the position after the predicted reply until stopped.
+    // All of it ends after ponderMillis: an opponent who takes long must not keep a search (and its tree) growing
+    private void ponder(BitBoard position, int opponent, int scoreDiff, long predictMillis, long ponderMillis) {
+        long start = System.nanoTime();
+        if (endgameThreshold > 0 && position.emptyCount() <= Math.min(endgameThreshold + 1, EndgameSolver.MAX_EMPTIES)) {
+            endgameSolver().solve(position, endgameThreshold + 1, ponderMillis);
+            return;
+        }
+        int predicted = think(position, opponent, scoreDiff, predictMillis);
+        if (Thread.currentThread().isInterrupted() || position.emptyCount() == 1) {
+            return;
+        }
+        int gain = position.placeAndScore(predicted, opponent);
+        ponderPosition.copyFrom(position);
+        ponderStart = System.nanoTime();
+        ponderPredicted = true;
+        long left = ponderMillis - (ponderStart - start) / 1_000_000;
+        ponderMove = think(position, id, -scoreDiff - gain, Math.max(left, 1));
+    }
+
+    // Move of the searching difficulty for the player to move, within the budget (0 for none) or until interrupted
+    private int think(BitBoard position, int player, int scoreDiff, long budgetMillis) {
+        if (difficulty == 5) {
+            return monteCarloSearch().search(position, player, scoreDiff, playoutLimit > 0 ? 0 : budgetMillis, playoutLimit);
+        }
+        return alphaBetaSearch().search(position, player, budgetMillis, searchDepthLimit);
+    }
+
+    // Stop pondering before choosing a move for the position. If the opponent played the predicted reply, the
+    // pondering search first gets what is left of this move's budget, and its move is returned; else NO_MOVE
+    private int finishPondering(BitBoard position) {
+        Thread thread = ponderThread;
+        if (thread == null) {
+            return TranspositionTable.NO_MOVE;
+        }
+        boolean hit = ponderPredicted && ponderPosition.getKey() == position.getKey();
+        if (hit) {
+            long left = moveBudgetMillis - (System.nanoTime() - ponderStart) / 1_000_000;
+            try {
+                if (moveBudgetMillis == 0) {
+                    thread.join();
+                } else if (left > 0) {
+                    thread.join(left);
+                }
+            } catch (InterruptedException e) {
+                // Told to stop thinking: answer with what pondering has so far
+                Thread.currentThread().interrupt();
+            }
+        }
+        stopPondering();
+        return hit ? ponderMove : TranspositionTable.NO_MOVE;
+    }
+
+    // Packed result of calculatePotentialScore: total in bits 0-7, then 11 bits per direction
+    // (0 horizontal, 1 vertical, 2 main diagonal, 3 sub diagonal) holding the line score (4 bits) and the run start cell (7 bits)
+    private static final int LINE_BITS = 11;
+
+    // Play the move on the search board and score it; the move stays on the board until the caller undoes it
+    private long calculatePotentialScore(int row, int col, int player, Board board) {
+        board.applyMove(row, col, player);
+        BitBoard bits = board.getBitBoard();
+        int cell = BitBoard.cellOf(row, col);
+
+        int totalScore = 0;
+        long result = 0;
+        // Check four directions
+        for (int direction = 0; direction < 4; direction++) {
+            int line = checkLineForScore(bits, cell, direction);
+            totalScore += line & 0xF;
+            result |= (long) line << (8 + direction * LINE_BITS);
+        }
+        return result | totalScore;
+    }
+
+    private static int potentialLineScore(long result, int direction) {
+        return (int) (result >>> (8 + direction * LINE_BITS)) & 0xF;
+    }
+
+    private static int potentialLineStart(long result, int direction) {
+        return (int) (result >>> (12 + direction * LINE_BITS)) & 0x7F;
+    }
+
+    // Returns the line score in the low 4 bits and the run start cell (row * 9 + col) above them,
+    // scored by the same rule and tables as Board
+    private static int checkLineForScore(BitBoard bits, int cell, int direction) {
+        int mask = bits.lineMask(LinePatterns.lineOf(direction, cell));
+        int start = BitBoard.runStart(bits.runAt(cell, direction));
+        return LinePatterns.score(mask, LinePatterns.indexOf(direction, cell)) | (start << 4);
+    }
+    // Transposition table used by this AI's searches; entries survive between moves and games
+    public TranspositionTable getTranspositionTable() {
+        if (transpositionTable == null) {
+            transpositionTable = new TranspositionTable(DEFAULT_TABLE_ENTRIES);
+        }
+        return transpositionTable;
+    }
+
+    public void setTranspositionTable(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+        alphaBetaSearch = null;
+    }
+
+    public TimeManager getTimeManager() {
+        return timeManager;
+    }
+
+    // How the searching difficulties spend their thinking time
+    public void setTimeManager(TimeManager timeManager) {
+        this.timeManager = timeManager;
+        lastEmptyCount = -1;
+    }
+
+    // Thinking time per move, or on a game clock that of the last move, in milliseconds
+    public long getTimeBudget() {
+        return timeManager.getMoveBudget();
+    }
+
+    // Thinking time per move for the searching difficulties, in milliseconds; 0 for no limit
+    public void setTimeBudget(long timeBudgetMillis) {
+        setTimeManager(TimeManager.perMove(timeBudgetMillis));
     }
+
+    // Thinking time per game for the searching difficulties, in milliseconds, allocated over the moves by phase
+    public void setGameClock(long gameMillis) {
+        setTimeManager(TimeManager.perGame(gameMillis));
+    }
+
+    public int getSearchDepthLimit() {
+        return searchDepthLimit;
+    }
+
+    // Stop the difficulty 4 search after this depth even if time is left; 0 (the default) for no limit
+    public void setSearchDepthLimit(int searchDepthLimit) {
+        this.searchDepthLimit = searchDepthLimit;
+    }
+
+    public int getEndgameThreshold() {
+        return endgameThreshold;
+    }
+
+    // Number of empty cells from which difficulty 3 and up solve the game exactly (at most EndgameSolver.MAX_EMPTIES), 0 to turn it off
+    public void setEndgameThreshold(int endgameThreshold) {
+        this.endgameThreshold = Math.min(endgameThreshold, EndgameSolver.MAX_EMPTIES);
+    }
+
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    // Book consulted before searching by difficulty 3 and up, the default book unless changed; null turns it off
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public GainKernel getGainKernel() {
+        return gainKernel;
+    }
+
+    // Backend that scores all empty cells for mediumMode and hardMode, the one selected at startup by default
+    public void setGainKernel(GainKernel gainKernel) {
+        this.gainKernel = gainKernel;
+        gainsValid = false;
+    }
+
+    public long getPlayoutLimit() {
+        return playoutLimit;
+    }
+
+    // Fixed number of playouts per move for difficulty 5; 0 (the default) searches for the time budget instead
+    public void setPlayoutLimit(long playoutLimit) {
+        this.playoutLimit = playoutLimit;
+    }
+
+    // Seed the random choices (random moves and tie-breaks) so a run can be repeated
+    public void setSeed(long seed) {
+        random = new Random(seed);
+        monteCarloSearch = null;
+    }
+
+    // Turn off to show the easy AI's moves as soon as they are chosen in interactive play
+    public void setPacing(boolean pacing) {
+        this.pacing = pacing;
+    }
+
+    // Least time an interactive front end should take to show one of this AI's moves, thinking included, in
+    // milliseconds; headless play ignores it
+    public long getMoveDelay() {
+        return pacing && difficulty == 1 ? EASY_MOVE_DELAY : 0;
+    }
+
+    public boolean isParallelHardMode() {
+        return parallelHardMode;
+    }
+
+    // Spread the hardMode candidates over the search pool; the chosen move is the same as sequentially for a given seed
+    public void setParallelHardMode(boolean parallelHardMode) {
+        this.parallelHardMode = parallelHardMode;
+    }
+
+    // Pool whose workers run the parallel searches, the common pool by default
+    public void setSearchPool(ForkJoinPool searchPool) {
+        this.searchPool = searchPool;
+        monteCarloSearch = null;
+        alphaBetaSearch = null;
+    }
+
+    public int getSearchThreads() {
+        return searchThreads;
+    }
+
+    // Threads of the difficulty 4 search; more than 1 runs helper searches on the search pool (Lazy SMP)
+    public void setSearchThreads(int searchThreads) {
+        this.searchThreads = Math.max(searchThreads, 1);
+        alphaBetaSearch = null;
+    }
+
+    // The Monte Carlo search of difficulty 5, null until its first move; holds playout statistics
+    public MonteCarloSearch getMonteCarloSearch() {
+        return monteCarloSearch;
+    }
+
+    // The alpha-beta search of difficulty 4, null until its first move; holds depth and node statistics
+    public AlphaBetaSearch getAlphaBetaSearch() {
+        return alphaBetaSearch;
+    }
+
+    // Think on the opponent's time: called when the opponent is to move, searches in the background until the next
+    // getBotMove or stopPondering, for at most PONDER_MOVE_BUDGETS move budgets. When the opponent plays the predicted reply the move is mostly searched already;
+    // otherwise the table entries and endgame values found still serve the real position. Difficulties below 4
+    // answer at once and do not ponder
+    public void startPondering() {
+        stopPondering();
+        Board board = game.getBoard();
+        if (difficulty < 4 || board.isFull()) {
+            return;
+        }
+        BitBoard position = board.getBitBoard().copy();
+        int opponent = 3 - id;
+        int scoreDiff = game.getScoreDiff(opponent);
+        long budget = timeManager.budgetFor(board.getEmptyCount());
+        long moveMillis = budget > 0 ? budget : DEFAULT_TIME_BUDGET;
+        long predictMillis = Math.max(moveMillis / PONDER_PREDICT_SHARE, 1);
+        long ponderMillis = moveMillis * PONDER_MOVE_BUDGETS;
+        ponderPredicted = false;
+        ponderMove = TranspositionTable.NO_MOVE;
+        Thread thread = new Thread(() -> ponder(position, opponent, scoreDiff, predictMillis, ponderMillis), "ponder-" + id);
+        thread.setDaemon(true);
+        ponderThread = thread;
+        thread.start();
+    }
+
+    // Stop pondering, if running, and wait until the pondering thread has left the searches
+    public void stopPondering() {
+        Thread thread = ponderThread;
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        ponderThread = null;
+    }
+
     public void checkGame(Game game) {
         if (game != this.game) {
             this.game = game;
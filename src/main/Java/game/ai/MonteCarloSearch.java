@@ -0,0 +1,275 @@
+package game.ai;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import game.BitBoard;
+
+// Monte Carlo tree search with tree parallelism.
+// One worker per thread of a ForkJoinPool, the first on the calling thread, descends the same tree by UCT and
+// finishes each descent with a random playout on its own BitBoard. A visit is counted on the way down before its result is known (virtual loss),
+// so threads running at the same time spread over different children instead of piling onto one node.
+// The tree stops growing at MAX_NODES nodes (about 50 bytes each); after that the search keeps running playouts from
+// the leaves it has, so a long budget costs time but no more memory.
+public final class MonteCarloSearch {
+    private static final double EXPLORATION = 1.4;
+    private static final int EXPAND_VISITS = 16; // A leaf gets children once it has been visited this often
+    private static final int TIME_CHECK_INTERVAL = 64; // Playouts between two clock reads per worker, and per claim under a playout limit
+    private static final int MAX_NODES = 1 << 20;
+
+    private final ForkJoinPool pool;
+    private final AtomicLong claimedPlayouts = new AtomicLong(); // Playouts handed out to workers in blocks, for the playout limit
+    private final AtomicInteger nodes = new AtomicInteger(); // Nodes in the tree of the current search
+    private volatile boolean treeFull; // Set once a leaf could not be expanded within MAX_NODES
+
+    // Search input shared by the workers
+    private BitBoard rootPosition;
+    private int rootPlayer;
+    private int rootScoreDiff;
+    private long deadline;
+    private Thread caller; // Thread in search, runs one of the workers
+    private volatile boolean stopped; // Set once the caller is interrupted, stops the other workers
+    private long maxPlayouts;
+    private long seed;
+
+    // Results of the last search
+    private int bestMove = TranspositionTable.NO_MOVE;
+    private double bestWinRate;
+    private long playouts;
+    private int treeNodes;
+    private long elapsedNanos;
+
+    // Tree node; stats packs visits (high 32 bits) and reward in half points (low 32 bits) so both update atomically
+    private static final class Node {
+        final int cell; // Move leading to this node
+        final AtomicLong stats = new AtomicLong();
+        volatile Node[] children;
+
+        Node(int cell) {
+            this.cell = cell;
+        }
+    }
+
+    public MonteCarloSearch(ForkJoinPool pool) {
+        this.pool = pool;
+        seed = System.nanoTime();
+    }
+
+    // Seed for the playout generators of the next searches
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // Search the position for the given player to move, whose current lead over the opponent is scoreDiff.
+    // Stops when the time budget runs out, maxPlayouts playouts are done (0 for no playout limit) or the calling
+    // thread is interrupted, and returns the most visited cell (row * 9 + col).
+    public int search(BitBoard position, int player, int scoreDiff, long budgetMillis, long maxPlayouts) {
+        long start = System.nanoTime();
+        rootPosition = position.copy();
+        rootPlayer = player;
+        rootScoreDiff = scoreDiff;
+        deadline = budgetMillis > 0 ? start + budgetMillis * 1_000_000L : Long.MAX_VALUE;
+        this.maxPlayouts = maxPlayouts > 0 ? maxPlayouts : Long.MAX_VALUE;
+        claimedPlayouts.set(0);
+        caller = Thread.currentThread();
+        stopped = false;
+        nodes.set(1);
+        treeFull = false;
+
+        Node root = new Node(TranspositionTable.NO_MOVE);
+        expand(root, rootPosition);
+        int workers = pool.getParallelism();
+        Worker[] tasks = new Worker[workers];
+        for (int i = 0; i < workers; i++) {
+            tasks[i] = new Worker(root, seed + i);
+        }
+        seed += workers;
+        // The first worker runs on the calling thread, where it sees an interrupt that joining would hold back
+        for (int i = 1; i < workers; i++) {
+            pool.execute(tasks[i]);
+        }
+        tasks[0].invoke();
+        for (int i = 1; i < workers; i++) {
+            tasks[i].join();
+        }
+        playouts = 0;
+        for (Worker task : tasks) {
+            playouts += task.done;
+        }
+        treeNodes = nodes.get();
+
+        // Play the most visited move
+        Node best = null;
+        for (Node child : root.children) {
+            if (best == null || (child.stats.get() >>> 32) > (best.stats.get() >>> 32)) {
+                best = child;
+            }
+        }
+        long stats = best.stats.get();
+        bestMove = best.cell;
+        bestWinRate = (stats >>> 32) == 0 ? 0 : (stats & 0xFFFFFFFFL) / (2.0 * (stats >>> 32));
+        elapsedNanos = System.nanoTime() - start;
+        return bestMove;
+    }
+
+    // Give the leaf a child per empty cell of its position, unless that would take the tree past MAX_NODES.
+    // Returns whether the node has children.
+    private boolean expand(Node node, BitBoard board) {
+        synchronized (node) {
+            if (node.children != null) {
+                return true;
+            }
+            int count = board.emptyCount();
+            if (nodes.addAndGet(count) > MAX_NODES) {
+                nodes.addAndGet(-count);
+                treeFull = true;
+                return false;
+            }
+            Node[] created = new Node[count];
+            int i = 0;
+            for (int cell = board.nextEmpty(0); cell >= 0; cell = board.nextEmpty(cell + 1)) {
+                created[i++] = new Node(cell);
+            }
+            node.children = created;
+            return true;
+        }
+    }
+
+    private final class Worker extends RecursiveAction {
+        private final Node root;
+        private final SplittableRandom random;
+        private final BitBoard board = new BitBoard();
+        private final Node[] path = new Node[BitBoard.CELLS + 1];
+        private final int[] playoutCells = new int[BitBoard.CELLS];
+        private long done;
+
+        Worker(Node root, long seed) {
+            this.root = root;
+            this.random = new SplittableRandom(seed);
+        }
+
+        @Override
+        protected void compute() {
+            while (true) {
+                // Claim a block of playouts under a playout limit; without one the workers share no counter
+                long block = TIME_CHECK_INTERVAL;
+                if (maxPlayouts != Long.MAX_VALUE) {
+                    block = Math.min(block, maxPlayouts - claimedPlayouts.getAndAdd(TIME_CHECK_INTERVAL));
+                    if (block <= 0) {
+                        break;
+                    }
+                }
+                for (long i = 0; i < block; i++) {
+                    iterate();
+                    done++;
+                }
+                if (caller.isInterrupted()) {
+                    stopped = true;
+                }
+                if (System.nanoTime() >= deadline || stopped) {
+                    break;
+                }
+            }
+        }
+
+        // One descent, playout and backup
+        private void iterate() {
+            board.copyFrom(rootPosition);
+            Node node = root;
+            int depth = 0;
+            int mover = rootPlayer;
+            int diff = 0; // Points gained by the root player minus the opponent's from the root on
+            root.stats.addAndGet(1L << 32);
+            path[0] = root;
+            while (true) {
+                Node[] children = node.children;
+                if (children == null) {
+                    // A full tree keeps its leaves as they are and plays out from them
+                    if (node.stats.get() >>> 32 < EXPAND_VISITS || treeFull || !expand(node, board)) {
+                        break;
+                    }
+                    children = node.children;
+                }
+                if (children.length == 0) {
+                    break;
+                }
+                node = select(node, children);
+                // Virtual loss: the visit counts now, the reward is added after the playout
+                node.stats.addAndGet(1L << 32);
+                int gain = board.placeAndScore(node.cell, mover);
+                diff += mover == rootPlayer ? gain : -gain;
+                mover = 3 - mover;
+                path[++depth] = node;
+            }
+
+            // Random playout: play the remaining cells in a random order
+            int count = 0;
+            for (int cell = board.nextEmpty(0); cell >= 0; cell = board.nextEmpty(cell + 1)) {
+                playoutCells[count++] = cell;
+            }
+            for (int i = count - 1; i >= 0; i--) {
+                int j = random.nextInt(i + 1);
+                int cell = playoutCells[j];
+                playoutCells[j] = playoutCells[i];
+                int gain = board.placeAndScore(cell, mover);
+                diff += mover == rootPlayer ? gain : -gain;
+                mover = 3 - mover;
+            }
+
+            // Reward in half points (win 2, draw 1, loss 0) for the player who made the move into each node
+            int finalDiff = rootScoreDiff + diff;
+            int rootReward = finalDiff > 0 ? 2 : finalDiff == 0 ? 1 : 0;
+            for (int d = 1; d <= depth; d++) {
+                path[d].stats.addAndGet((d & 1) == 1 ? rootReward : 2 - rootReward);
+            }
+        }
+
+        private Node select(Node parent, Node[] children) {
+            double logVisits = Math.log(Math.max(1, parent.stats.get() >>> 32));
+            Node best = children[0];
+            double bestScore = -1;
+            for (Node child : children) {
+                long stats = child.stats.get();
+                long visits = stats >>> 32;
+                if (visits == 0) {
+                    return child;
+                }
+                double score = (stats & 0xFFFFFFFFL) / (2.0 * visits) + EXPLORATION * Math.sqrt(logVisits / visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = child;
+                }
+            }
+            return best;
+        }
+    }
+
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    // Share of won playouts (draws count half) through the chosen move
+    public double getBestWinRate() {
+        return bestWinRate;
+    }
+
+    public long getPlayouts() {
+        return playouts;
+    }
+
+    // Nodes in the tree of the last search, at most MAX_NODES
+    public int getTreeNodes() {
+        return treeNodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getPlayoutsPerSecond() {
+        return elapsedNanos == 0 ? 0 : playouts * 1_000_000_000L / elapsedNanos;
+    }
+}
@@ -0,0 +1,124 @@
+package game.ai;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import game.BitBoard;
+import game.Symmetry;
+
+// Opening book: a sorted table of position key -> best move and score, memory-mapped read-only with FileChannel.map
+// and searched in place, so loading copies nothing onto the heap.
+// Positions are keyed on their canonical occupancy (see BitBoard.getOccupancyKey), so one entry serves both colours
+// and all 8 symmetric positions.
+//
+// File layout (big-endian): 8-byte magic "BG369BK1", int entry count, int reserved,
+// then per entry: long key, short move (canonical frame), short score, short depth, short reserved.
+public final class OpeningBook {
+    public static final String DEFAULT_PATH = "bg369.book"; // Overridden with -Dbg369.book=PATH
+    private static final long MAGIC = 0x424733363942_4B31L; // "BG369BK1"
+    private static final int HEADER_BYTES = 16;
+    private static final int ENTRY_BYTES = 16;
+    private static final OpeningBook EMPTY = new OpeningBook(null, 0);
+    private static OpeningBook defaultBook;
+
+    private final ByteBuffer data;
+    private final int size;
+
+    private OpeningBook(ByteBuffer data, int size) {
+        this.data = data;
+        this.size = size;
+    }
+
+    // The book at -Dbg369.book or DEFAULT_PATH, loaded on first use; empty if there is no readable book
+    public static synchronized OpeningBook getDefault() {
+        if (defaultBook == null) {
+            Path path = Paths.get(System.getProperty("bg369.book", DEFAULT_PATH));
+            defaultBook = EMPTY;
+            if (Files.isReadable(path)) {
+                try {
+                    defaultBook = open(path);
+                } catch (IOException | IllegalArgumentException e) {
+                    System.out.println("Cannot load opening book " + path + ": " + e.getMessage());
+                }
+            }
+        }
+        return defaultBook;
+    }
+
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.capacity() < HEADER_BYTES || data.getLong(0) != MAGIC) {
+                throw new IllegalArgumentException("not an opening book");
+            }
+            int size = data.getInt(8);
+            if (size < 0 || HEADER_BYTES + (long) size * ENTRY_BYTES > data.capacity()) {
+                throw new IllegalArgumentException("truncated opening book");
+            }
+            return new OpeningBook(data, size);
+        }
+    }
+
+    // Write a book; keys must be occupancy keys of canonical positions (see Symmetry.canonicalOccupancyKey) and moves in the same frame
+    public static void write(Path path, long[] keys, int[] moves, int[] scores, int[] depths, int count) throws IOException {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        java.util.Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + count * ENTRY_BYTES).order(ByteOrder.BIG_ENDIAN);
+        buffer.putLong(MAGIC).putInt(count).putInt(0);
+        for (int i : order) {
+            buffer.putLong(keys[i]).putShort((short) moves[i]).putShort((short) scores[i])
+                    .putShort((short) depths[i]).putShort((short) 0);
+        }
+        Files.write(path, buffer.array());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // The book move for the position as a cell (row * 9 + col), NO_MOVE if the position is not in the book
+    public int lookup(BitBoard position) {
+        if (size == 0) {
+            return TranspositionTable.NO_MOVE;
+        }
+        int symmetry = Symmetry.canonicalOccupancySymmetry(position);
+        int entry = find(Symmetry.occupancyKey(position, symmetry));
+        if (entry < 0) {
+            return TranspositionTable.NO_MOVE;
+        }
+        int move = data.getShort(offset(entry) + 8);
+        return Symmetry.apply(Symmetry.inverse(symmetry), move);
+    }
+
+    private int find(long key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = data.getLong(offset(middle));
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private static int offset(int entry) {
+        return HEADER_BYTES + entry * ENTRY_BYTES;
+    }
+}
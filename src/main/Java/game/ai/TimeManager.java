@@ -0,0 +1,81 @@
+package game.ai;
+
+// Thinking time of a GameAI: either a fixed budget per move or a clock for the whole game.
+// On a game clock each move gets the remaining time split over the moves the AI still has to make, weighted by the
+// phase of the game: the opening is mostly book moves and quiet cells, the midgame is where lines of 3, 6 and 9 are
+// decided, and the last EndgameSolver.MAX_EMPTIES or so cells are solved exactly and cost little.
+// Thinking time only; the cosmetic delay of interactive play is Game's concern.
+public final class TimeManager {
+    private static final int OPENING_EMPTIES = 60; // More empty cells than this is the opening
+    private static final int ENDGAME_EMPTIES = 30; // Fewer empty cells than this is the endgame
+    private static final double OPENING_WEIGHT = 0.5;
+    private static final double MIDGAME_WEIGHT = 1.5;
+    private static final double ENDGAME_WEIGHT = 1.0;
+    private static final long MIN_MOVE_MILLIS = 5; // Least a move gets on a clock, even when it has run out
+
+    private final long moveMillis; // Budget per move, 0 for no limit; unused on a game clock
+    private final long gameMillis; // Clock per game, 0 for a budget per move
+    private long remainingMillis;
+    private long lastBudgetMillis;
+
+    private TimeManager(long moveMillis, long gameMillis) {
+        this.moveMillis = moveMillis;
+        this.gameMillis = gameMillis;
+        remainingMillis = gameMillis;
+        lastBudgetMillis = moveMillis;
+    }
+
+    // The same budget for every move, in milliseconds; 0 for no time limit
+    public static TimeManager perMove(long moveMillis) {
+        return new TimeManager(Math.max(moveMillis, 0), 0);
+    }
+
+    // One clock for all moves of a game, in milliseconds
+    public static TimeManager perGame(long gameMillis) {
+        if (gameMillis <= 0) {
+            throw new IllegalArgumentException("game clock must be positive: " + gameMillis);
+        }
+        return new TimeManager(0, gameMillis);
+    }
+
+    public boolean isGameClock() {
+        return gameMillis > 0;
+    }
+
+    // Time left on the game clock, 0 for a budget per move
+    public long getRemaining() {
+        return remainingMillis;
+    }
+
+    // The budget per move, or on a game clock the budget of the last move
+    public long getMoveBudget() {
+        return lastBudgetMillis;
+    }
+
+    // Wind the game clock back to full for a new game
+    public void startGame() {
+        remainingMillis = gameMillis;
+    }
+
+    // Thinking time for the next move with this many empty cells on the board, in milliseconds (0 for no limit)
+    public long budgetFor(int empties) {
+        if (!isGameClock()) {
+            return moveMillis;
+        }
+        int movesLeft = Math.max((empties + 1) / 2, 1); // The AI makes every other move
+        double weight = empties > OPENING_EMPTIES ? OPENING_WEIGHT
+                : empties < ENDGAME_EMPTIES ? ENDGAME_WEIGHT : MIDGAME_WEIGHT;
+        long budget = (long) (weight * remainingMillis / movesLeft);
+        // Never stake more than half of what is left on one move
+        budget = Math.min(budget, remainingMillis / 2);
+        lastBudgetMillis = Math.max(budget, MIN_MOVE_MILLIS);
+        return lastBudgetMillis;
+    }
+
+    // Charge a finished move's thinking time to the game clock
+    public void moveDone(long elapsedNanos) {
+        if (isGameClock()) {
+            remainingMillis = Math.max(remainingMillis - elapsedNanos / 1_000_000, 0);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package game.ai;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed-size transposition table shared by the GameAI searches.
+// Entries live in two-slot buckets indexed by the low bits of the Zobrist key:
+// slot 0 keeps the deepest (or most recent generation) result, slot 1 is always replaced.
+// Each entry is a packed long: eval (16 bits), depth (8), bound (2), best move (8), generation (8).
+// The table is lock-free so several search threads can share it: a slot is two plain longs, the entry and
+// key ^ entry, written without synchronization. A probe only accepts a slot whose two halves still XOR to the key,
+// so a slot torn by two threads writing at once reads as a miss instead of a wrong entry.
+public final class TranspositionTable {
+    public static final int EXACT = 1; // eval is the exact value
+    public static final int LOWER = 2; // eval is a lower bound (search failed high)
+    public static final int UPPER = 3; // eval is an upper bound (search failed low)
+    public static final int NO_MOVE = -1;
+
+    private final long[] checks; // key ^ entry of each slot
+    private final long[] entries; // 0 marks an empty slot, valid entries always have a non-zero bound
+    private final int bucketMask;
+    private int generation; // Changed between searches only, before helper threads start
+
+    // Counters for sizing the table; striped so threads sharing the table do not contend on them
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder overwrites = new LongAdder(); // stores that evicted an entry for a different position
+    private final LongAdder used = new LongAdder(); // slots holding an entry
+
+    // Create a table with at least the given number of entries (rounded up to a power of two)
+    public TranspositionTable(int minEntries) {
+        int buckets = 1;
+        while (buckets * 2 < minEntries) {
+            buckets <<= 1;
+        }
+        checks = new long[buckets * 2];
+        entries = new long[buckets * 2];
+        bucketMask = buckets - 1;
+    }
+
+    // Start a new search generation so entries from earlier moves are preferred for replacement
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    // Look up a position, returns the packed entry or 0 if the position is not stored
+    public long probe(long key) {
+        probes.increment();
+        int slot = (int) (key & bucketMask) << 1;
+        for (int i = slot; i < slot + 2; i++) {
+            long entry = entries[i];
+            if (entry != 0 && (checks[i] ^ entry) == key) {
+                hits.increment();
+                return entry;
+            }
+        }
+        return 0;
+    }
+
+    public void store(long key, int eval, int depth, int bound, int bestMove) {
+        stores.increment();
+        int slot = (int) (key & bucketMask) << 1;
+        int generation = this.generation;
+        long entry = pack(eval, depth, bound, bestMove, generation);
+        long deep = entries[slot];
+        long deepKey = checks[slot] ^ deep;
+        if (deep == 0 || deepKey == key || depth >= depth(deep) || generation(deep) != generation) {
+            if (deep != 0 && deepKey != key) {
+                // The evicted entry moves down to the always-replace slot
+                write(slot + 1, deepKey, deep);
+            }
+            write(slot, key, entry);
+        } else {
+            write(slot + 1, key, entry);
+        }
+    }
+
+    private void write(int slot, long key, long entry) {
+        long old = entries[slot];
+        if (old == 0) {
+            used.increment();
+        } else if ((checks[slot] ^ old) != key) {
+            overwrites.increment();
+        }
+        entries[slot] = entry;
+        checks[slot] = key ^ entry;
+    }
+
+    // Not to be called while a search is using the table
+    public void clear() {
+        java.util.Arrays.fill(checks, 0);
+        java.util.Arrays.fill(entries, 0);
+        probes.reset();
+        hits.reset();
+        stores.reset();
+        overwrites.reset();
+        used.reset();
+    }
+
+    private static long pack(int eval, int depth, int bound, int bestMove, int generation) {
+        return (eval & 0xFFFFL)
+                | ((long) (depth & 0xFF) << 16)
+                | ((long) bound << 24)
+                | ((long) ((bestMove + 1) & 0xFF) << 26)
+                | ((long) generation << 34);
+    }
+
+    public static int eval(long entry) {
+        return (short) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 16) & 0xFF;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> 24) & 0x3;
+    }
+
+    // Best move as a cell index (row * 9 + col), NO_MOVE if none was stored
+    public static int bestMove(long entry) {
+        return ((int) (entry >>> 26) & 0xFF) - 1;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> 34) & 0xFF;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    public long getOverwrites() {
+        return overwrites.sum();
+    }
+
+    // Approximate while several threads share the table: two threads filling the same empty slot both count it
+    public int getUsed() {
+        return (int) Math.min(used.sum(), entries.length);
+    }
+
+    public double hitRate() {
+        long probes = getProbes();
+        return probes == 0 ? 0 : (double) getHits() / probes;
+    }
+
+    public double occupancy() {
+        return (double) getUsed() / entries.length;
+    }
+
+    @Override
+    public String toString() {
+        return format(entries.length, getUsed(), getProbes(), getHits(), getStores(), getOverwrites());
+    }
+
+    // Statistics as shown by toString, also formatted from the numbers traced after a search
+    static String format(long capacity, long used, long probes, long hits, long stores, long overwrites) {
+        return String.format("TT[%d entries, %.1f%% used, %d probes, %.1f%% hits, %d stores, %d overwrites]",
+                capacity, 100.0 * used / capacity, probes, probes == 0 ? 0.0 : 100.0 * hits / probes, stores, overwrites);
+    }
+}
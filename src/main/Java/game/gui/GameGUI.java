@@ -391,7 +391,7 @@ public final class GameGUI extends JFrame {
         // Handle selected mode
         if (mode == 0) { // Play with AI
             // Show difficulty selection dialog
-            String[] difficulties = {Localization.getString("game.easy"), Localization.getString("game.medium"), Localization.getString("game.hard")};
+            String[] difficulties = {Localization.getString("game.easy"), Localization.getString("game.medium"), Localization.getString("game.hard"), Localization.getString("game.expert"), Localization.getString("game.monte_carlo")};
             int difficulty = JOptionPane.showOptionDialog(this,
                     Localization.getString("gui.choose_difficulty", ""),
                     Localization.getString("gui.difficulty_selection", ""),
@@ -405,7 +405,7 @@ public final class GameGUI extends JFrame {
             game.setBot(1, difficulty + 1); // Difficulty option index +1 corresponds to actual difficulty value
         } else if (mode == 2) { // Watch AI vs AI
             // Show first AI difficulty selection
-            String[] difficulties = {Localization.getString("game.easy"), Localization.getString("game.medium"), Localization.getString("game.hard")};
+            String[] difficulties = {Localization.getString("game.easy"), Localization.getString("game.medium"), Localization.getString("game.hard"), Localization.getString("game.expert"), Localization.getString("game.monte_carlo")};
             int difficulty1 = JOptionPane.showOptionDialog(this,
                     Localization.getString("gui.choose_difficulty", "1"),
                     Localization.getString("gui.difficulty_selection", "1"),
@@ -852,6 +852,8 @@ public final class GameGUI extends JFrame {
         }
         if (game.isBot(currentPlayer)) {
             game.guiGetBotMove(currentPlayer);
+        } else {
+            game.guiPonder(currentPlayer);
         }
     }
     @SuppressWarnings("UseTextBlock")
@@ -890,6 +892,7 @@ public final class GameGUI extends JFrame {
 
         if (option == JOptionPane.YES_OPTION) {
             // Create new game instance
+            game.abandon();
             game = new Game(true, game.getGameAI1(), game.getGameAI2(), this, false);
             new SwingWorker<Void, Void>() {
                 @Override
@@ -0,0 +1,201 @@
+package myutil;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Level-gated tracing for the game and the AI.
+// An event is a fixed Event plus up to 7 long arguments, copied into a preallocated ring buffer without locks or
+// allocation; a background daemon thread turns the records into text and writes them to the console or a file.
+// When the level is below an event's level, logging is a single volatile read. When the buffer is full the event
+// is dropped and counted instead of blocking the caller.
+//
+// Configuration: -Dbg369.trace=off|info|debug|trace (default info) and -Dbg369.trace.file=PATH (default console),
+// or setLevel/setFile at runtime.
+public final class Tracer {
+    public static final int OFF = 0;
+    public static final int INFO = 1; // One line per decision: the move played, search summaries
+    public static final int DEBUG = 2; // Intermediate results of a decision
+    public static final int TRACE = 3; // Every candidate considered
+
+    // A kind of trace event; formats its arguments on the drain thread
+    public interface Event {
+        int level();
+
+        void format(StringBuilder out, long[] args, int offset);
+    }
+
+    private static final int CAPACITY = 1 << 12; // Records in the ring, a power of two
+    private static final int ARGS = 7;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private static volatile int level = parseLevel(System.getProperty("bg369.trace", "info"));
+    private static volatile PrintStream file; // null writes to System.out
+
+    // Ring buffer: record seq lives in slot seq & (CAPACITY - 1) and is readable once published[slot] == seq + 1
+    private static final Event[] events = new Event[CAPACITY];
+    private static final long[] args = new long[CAPACITY * ARGS];
+    private static final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong head = new AtomicLong(); // Next record to claim
+    private static volatile long tail; // Next record to drain
+    private static final LongAdder dropped = new LongAdder();
+    private static final AtomicBoolean started = new AtomicBoolean();
+
+    static {
+        String path = System.getProperty("bg369.trace.file");
+        if (path != null) {
+            setFile(path);
+        }
+    }
+
+    private Tracer() {
+    }
+
+    public static int parseLevel(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "off" -> OFF;
+            case "debug" -> DEBUG;
+            case "trace" -> TRACE;
+            default -> INFO;
+        };
+    }
+
+    public static int getLevel() {
+        return level;
+    }
+
+    public static void setLevel(int level) {
+        Tracer.level = level;
+    }
+
+    public static boolean isEnabled(int eventLevel) {
+        return eventLevel <= level;
+    }
+
+    public static boolean isEnabled(Event event) {
+        return event.level() <= level;
+    }
+
+    // Write the trace to a file (UTF-8, appended) instead of the console
+    public static void setFile(String path) {
+        try {
+            file = new PrintStream(new FileOutputStream(path, true), true, StandardCharsets.UTF_8);
+        } catch (FileNotFoundException e) {
+            System.out.println("Cannot open trace file " + path + ": " + e.getMessage());
+        }
+    }
+
+    public static long getDropped() {
+        return dropped.sum();
+    }
+
+    public static void log(Event event) {
+        log(event, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public static void log(Event event, long a) {
+        log(event, a, 0, 0, 0, 0, 0, 0);
+    }
+
+    public static void log(Event event, long a, long b) {
+        log(event, a, b, 0, 0, 0, 0, 0);
+    }
+
+    public static void log(Event event, long a, long b, long c) {
+        log(event, a, b, c, 0, 0, 0, 0);
+    }
+
+    public static void log(Event event, long a, long b, long c, long d) {
+        log(event, a, b, c, d, 0, 0, 0);
+    }
+
+    public static void log(Event event, long a, long b, long c, long d, long e) {
+        log(event, a, b, c, d, e, 0, 0);
+    }
+
+    public static void log(Event event, long a, long b, long c, long d, long e, long f) {
+        log(event, a, b, c, d, e, f, 0);
+    }
+
+    public static void log(Event event, long a, long b, long c, long d, long e, long f, long g) {
+        if (event.level() > level) {
+            return;
+        }
+        long seq;
+        do {
+            seq = head.get();
+            if (seq - tail >= CAPACITY) {
+                dropped.increment();
+                return;
+            }
+        } while (!head.compareAndSet(seq, seq + 1));
+        int slot = (int) seq & (CAPACITY - 1);
+        int offset = slot * ARGS;
+        events[slot] = event;
+        args[offset] = a;
+        args[offset + 1] = b;
+        args[offset + 2] = c;
+        args[offset + 3] = d;
+        args[offset + 4] = e;
+        args[offset + 5] = f;
+        args[offset + 6] = g;
+        published.set(slot, seq + 1);
+        if (!started.get() && started.compareAndSet(false, true)) {
+            startDrain();
+        }
+    }
+
+    // Doubles travel as their raw bits
+    public static long bits(double value) {
+        return Double.doubleToRawLongBits(value);
+    }
+
+    public static double toDouble(long bits) {
+        return Double.longBitsToDouble(bits);
+    }
+
+    // Wait until everything logged so far has been written, at most the given time
+    public static void flush(long timeoutMillis) {
+        long target = head.get();
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        while (started.get() && tail < target && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private static void startDrain() {
+        Thread drain = new Thread(Tracer::drainLoop, "bg369-trace");
+        drain.setDaemon(true);
+        drain.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(500)));
+    }
+
+    private static void drainLoop() {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            long seq = tail;
+            int slot = (int) seq & (CAPACITY - 1);
+            if (published.get(slot) != seq + 1) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            line.setLength(0);
+            try {
+                events[slot].format(line, args, slot * ARGS);
+            } catch (RuntimeException e) {
+                line.append("trace format error in ").append(events[slot]).append(": ").append(e);
+            }
+            events[slot] = null;
+            tail = seq + 1;
+            PrintStream out = file != null ? file : System.out;
+            out.println(line);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// BitBoard and Board against the original scoring walk of Board (findStartPosition, countConsecutive,
+// checkMultiples), kept below as Reference, on seeded random games.
+// Every game plays the board full, 81 positions. The defaults keep the build fast; for a long run raise them, e.g.
+// gradlew test -Dbg369.test.games=25000 -Dbg369.test.replyInterval=1 (about two million positions per test).
+class ScoringDifferentialTest {
+    private static final int SIZE = BitBoard.SIZE;
+    private static final long SEED = Long.getLong("bg369.test.seed", 369);
+    private static final int GAMES = Integer.getInteger("bg369.test.games", 40);
+    // Moves between full bestReply checks, which cost O(cells^2) each
+    private static final int REPLY_CHECK_INTERVAL = Integer.getInteger("bg369.test.replyInterval", 7);
+
+    @Test
+    void handleConsecutiveMatchesReference() {
+        Random random = new Random(SEED);
+        for (int game = 0; game < GAMES; game++) {
+            Board board = new Board(SIZE);
+            Reference reference = new Reference();
+            int[] order = shuffledCells(random);
+            for (int move = 0; move < order.length; move++) {
+                int row = BitBoard.rowOf(order[move]);
+                int col = BitBoard.colOf(order[move]);
+                int player = 1 + random.nextInt(2);
+                String where = "game " + game + " move " + move + " at " + row + "," + col;
+
+                int expected = reference.place(row, col, player);
+                assertEquals(expected, board.handleConsecutive(row, col, player), "score, " + where);
+
+                for (int direction = 0; direction < 4; direction++) {
+                    assertEquals(reference.directionScores.get(direction),
+                            board.getDirectionScores().get(direction), "direction score " + direction + ", " + where);
+                    assertCellsEqual(reference.directionMarks.get(direction),
+                            board.getDirectionMarks().get(direction), "direction marks " + direction + ", " + where);
+                }
+                assertCellsEqual(reference.markedPositions, board.getMarkedPositions(), "marked positions, " + where);
+            }
+        }
+    }
+
+    @Test
+    void bitBoardScoringMatchesReference() {
+        Random random = new Random(SEED + 1);
+        int[] gains = new int[BitBoard.CELLS];
+        int[] ranked = new int[BitBoard.CELLS];
+        for (int game = 0; game < GAMES; game++) {
+            BitBoard bits = new BitBoard();
+            Reference reference = new Reference();
+            int[] order = shuffledCells(random);
+            for (int move = 0; move < order.length; move++) {
+                String where = "game " + game + " move " + move;
+
+                bits.gains(gains);
+                int[] expectedGains = reference.gains();
+                assertArrayEquals(expectedGains, gains, "gains, " + where);
+                for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+                    if (bits.isOccupied(cell)) {
+                        assertEquals(reference.scoreAt(cell), bits.scoreAt(cell), "scoreAt " + cell + ", " + where);
+                    } else {
+                        assertEquals(expectedGains[cell], bits.gainAt(cell), "gainAt " + cell + ", " + where);
+                    }
+                }
+
+                if (move % REPLY_CHECK_INTERVAL == 0) {
+                    int rankedCount = BitBoard.rankGains(gains, ranked);
+                    for (int cell = bits.nextEmpty(0); cell >= 0; cell = bits.nextEmpty(cell + 1)) {
+                        int expected = reference.bestReply(cell);
+                        assertEquals(expected, bits.bestReply(cell, gains), "bestReply " + cell + ", " + where);
+                        assertEquals(expected, bits.bestReply(cell, gains, ranked, rankedCount),
+                                "ranked bestReply " + cell + ", " + where);
+                    }
+                }
+
+                int cell = order[move];
+                int player = 1 + random.nextInt(2);
+                int expected = reference.place(BitBoard.rowOf(cell), BitBoard.colOf(cell), player);
+                assertEquals(expected, bits.placeAndScore(cell, player), "placeAndScore " + cell + ", " + where);
+            }
+        }
+    }
+
+    private static int[] shuffledCells(Random random) {
+        int[] cells = new int[BitBoard.CELLS];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        for (int i = cells.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = cells[i];
+            cells[i] = cells[j];
+            cells[j] = swap;
+        }
+        return cells;
+    }
+
+    private static void assertCellsEqual(List<int[]> expected, List<int[]> actual, String message) {
+        assertEquals(expected.size(), actual.size(), message);
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i), message + ", cell " + i);
+        }
+    }
+
+    // The grid walk Board used before BitBoard, on a plain grid (0 empty, otherwise the player)
+    private static final class Reference {
+        private final int[][] grid = new int[SIZE][SIZE];
+        private final List<int[]> markedPositions = new ArrayList<>();
+        private final Map<Integer, List<int[]>> directionMarks = new HashMap<>();
+        private final Map<Integer, Integer> directionScores = new HashMap<>();
+
+        Reference() {
+            for (int i = 0; i < 4; i++) {
+                directionMarks.put(i, new ArrayList<>());
+            }
+        }
+
+        // Place a stone, mark its runs like Board.handleConsecutive and return its score
+        int place(int row, int col, int player) {
+            markedPositions.clear();
+            for (int i = 0; i < 4; i++) {
+                directionMarks.get(i).clear();
+            }
+            directionScores.clear();
+            grid[row][col] = player;
+            int[][] positions = findStartPosition(row, col);
+            int[] count = countConsecutive(positions);
+            int score = checkMultiples(count);
+            if (score > 0) {
+                markConsecutive(positions, count);
+            }
+            return score;
+        }
+
+        int scoreAt(int cell) {
+            int[][] positions = findStartPosition(BitBoard.rowOf(cell), BitBoard.colOf(cell));
+            return checkMultiples(countConsecutive(positions));
+        }
+
+        // Score of a stone on every empty cell, 0 for occupied cells
+        int[] gains() {
+            int[] gains = new int[BitBoard.CELLS];
+            for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+                int row = BitBoard.rowOf(cell);
+                int col = BitBoard.colOf(cell);
+                if (grid[row][col] == 0) {
+                    grid[row][col] = 1;
+                    gains[cell] = scoreAt(cell);
+                    grid[row][col] = 0;
+                }
+            }
+            return gains;
+        }
+
+        // Packed like BitBoard.bestReply: first cell in row-major order with the highest positive gain after a stone
+        // on the cell
+        int bestReply(int cell) {
+            int row = BitBoard.rowOf(cell);
+            int col = BitBoard.colOf(cell);
+            grid[row][col] = 1;
+            int[] gains = gains();
+            grid[row][col] = 0;
+            int best = 0;
+            int reply = -1;
+            for (int other = 0; other < BitBoard.CELLS; other++) {
+                if (gains[other] > best) {
+                    best = gains[other];
+                    reply = other;
+                }
+            }
+            return best << 8 | (reply + 1);
+        }
+
+        private int[][] findStartPosition(int row, int col/* , int direction */) {
+            int[][] Positions = new int[4][2]; // [0]: left, [1]: up, [2]: top-left, [3]: bottom-left; [i][0]: y, [i][1]: x
+            Positions[0][0] = row; // left-right y remains same
+            Positions[1][1] = col; // up-down x remains same
+            // Check left direction start position
+            for (int jx = col - 1; jx >= -1; jx--) {
+                if (jx == -1) {
+                    Positions[0][1] = 0; // left x
+                    break;
+                }
+                if (grid[row][jx] == 0) {
+                    Positions[0][1] = jx + 1; // left x
+                    break;
+                }
+            }
+            // Check up direction start position
+            for (int iy = row - 1; iy >= -1; iy--) {
+                if (iy == -1) {
+                    Positions[1][0] = 0; // up y
+                    break;
+                }
+                if (grid[iy][col] == 0) {
+                    Positions[1][0] = iy + 1; // up y
+                    break;
+                }
+            }
+            // Check top-left direction start position
+            for (int iy = row - 1, jx = col - 1; iy >= -1 && jx >= -1; iy--, jx--) {
+                if (iy == -1 || jx == -1) {
+                    Positions[2][0] = iy == -1 ? 0 : iy + 1; // top-left y
+                    Positions[2][1] = jx == -1 ? 0 : jx + 1; // top-left x
+                    break;
+                }
+                if (grid[iy][jx] == 0) {
+                    Positions[2][0] = iy + 1; // top-left y
+                    Positions[2][1] = jx + 1; // top-left x
+                    break;
+                }
+            }
+            // Check bottom-left direction start position
+            for (int iy = row + 1, jx = col - 1; iy <= SIZE && jx >= -1; iy++, jx--) {
+                if (iy == SIZE || jx == -1) {
+                    Positions[3][0] = iy == SIZE ? SIZE - 1 : iy - 1; // bottom-left y
+                    Positions[3][1] = jx == -1 ? 0 : jx + 1; // bottom-left x
+                    break;
+                }
+                if (grid[iy][jx] == 0) {
+                    Positions[3][0] = iy - 1; // bottom-left y
+                    Positions[3][1] = jx + 1; // bottom-left x
+                    break;
+                }
+            }
+            return Positions;
+        }
+
+        private int[] countConsecutive(int[][] Positions/* , int direction */) {
+            int[] count = new int[4];
+            // from left to right
+            for (int jx = Positions[0][1]; jx < SIZE && grid[Positions[0][0]][jx] != 0; jx++) {
+                count[0]++;
+            }
+            // from up to down
+            for (int iy = Positions[1][0]; iy < SIZE && grid[iy][Positions[1][1]] != 0; iy++) {
+                count[1]++;
+            }
+            // from top-left to bottom-right
+            for (int iy = Positions[2][0], jx = Positions[2][1]; iy < SIZE && jx < SIZE
+                    && grid[iy][jx] != 0; iy++, jx++) {
+                count[2]++;
+            }
+            // from bottom-left to top-right
+            for (int iy = Positions[3][0], jx = Positions[3][1]; iy >= 0 && jx < SIZE
+                    && grid[iy][jx] != 0; iy--, jx++) {
+                count[3]++;
+            }
+            return count;
+        }
+
+        // Check multiples of 3 in all directions
+        private int checkMultiples(int[] count) {
+            int score = 0;
+            for (int i = 0; i < 4; i++) {
+                if (count[i] % 3 == 0 && count[i] > 0) {
+                    score += count[i];
+                }
+            }
+            return score;
+        }
+
+        // Same marks as Board.markConsecutive: the run of every scoring direction from its start position
+        private void markConsecutive(int[][] Positions, int[] count) {
+            int[][] steps = { { 0, 1 }, { 1, 0 }, { 1, 1 }, { -1, 1 } };
+            for (int direction = 0; direction < 4; direction++) {
+                if (count[direction] % 3 == 0 && count[direction] > 0) {
+                    List<int[]> marks = new ArrayList<>();
+                    for (int i = 0; i < count[direction]; i++) {
+                        int[] pos = { Positions[direction][0] + steps[direction][0] * i,
+                                Positions[direction][1] + steps[direction][1] * i };
+                        marks.add(pos);
+                        markedPositions.add(pos);
+                    }
+                    directionMarks.put(direction, marks);
+                    directionScores.put(direction, count[direction]);
+                }
+            }
+        }
+    }
+}
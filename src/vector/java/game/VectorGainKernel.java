@@ -0,0 +1,60 @@
+package game;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Vector API version of BitBoard.gains: one lane per cell.
+// For each direction the lanes gather their line's mask, form the pattern key (mask << 4 | index)
+// and gather the gain from an int copy of the LinePatterns table; the four directions are summed.
+// The Java 17 gather takes its indices from an int[], so the keys pass through a scratch array.
+final class VectorGainKernel implements GainKernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int PADDED = (BitBoard.CELLS + SPECIES.length() - 1) / SPECIES.length() * SPECIES.length();
+    // Per direction and cell (padded with cell 0 of line 0): line id and index in the line
+    private static final int[][] LINE = new int[4][PADDED];
+    private static final int[][] INDEX = new int[4][PADDED];
+    // The gain table of LinePatterns as ints, indexed by mask << 4 | index
+    private static final int[] GAIN = new int[LinePatterns.MASKS << 4];
+
+    static {
+        for (int direction = 0; direction < 4; direction++) {
+            for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+                LINE[direction][cell] = LinePatterns.lineOf(direction, cell);
+                INDEX[direction][cell] = LinePatterns.indexOf(direction, cell);
+            }
+        }
+        for (int mask = 0; mask < LinePatterns.MASKS; mask++) {
+            for (int index = 0; index < LinePatterns.MAX_LENGTH; index++) {
+                if ((mask & (1 << index)) == 0) {
+                    GAIN[mask << 4 | index] = LinePatterns.gain(mask, index);
+                }
+            }
+        }
+    }
+
+    private final int[] keys = new int[SPECIES.length()];
+
+    @Override
+    public void gains(BitBoard board, int[] gains) {
+        int[] lineMasks = board.lineMasks();
+        int[] table = GAIN;
+        for (int i = 0; i < PADDED; i += SPECIES.length()) {
+            IntVector sum = IntVector.zero(SPECIES);
+            for (int direction = 0; direction < 4; direction++) {
+                IntVector masks = IntVector.fromArray(SPECIES, lineMasks, 0, LINE[direction], i);
+                IntVector index = IntVector.fromArray(SPECIES, INDEX[direction], i);
+                masks.lanewise(VectorOperators.LSHL, 4).or(index).intoArray(keys, 0);
+                sum = sum.add(IntVector.fromArray(SPECIES, table, 0, keys, 0));
+            }
+            VectorMask<Integer> inRange = SPECIES.indexInRange(i, BitBoard.CELLS);
+            sum.intoArray(gains, i, inRange);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector(" + SPECIES.length() + " lanes)";
+    }
+}